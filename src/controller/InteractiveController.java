@@ -1,22 +1,41 @@
 package controller;
 
 import java.io.File;
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
 
 import model.IPhotoAlbum;
+import model.ISnapshotStore;
 import model.Snapshot;
+import util.CommandCompiler;
+import util.LoadMode;
 import util.PhotoFileReader;
 import view.GUIView;
 
 /**
  * This class represents an interactive controller that communicates with a GUI-type view. An
- * interactive controller has the name of the input file, a photo album model, and a GUI view.
+ * interactive controller has the name of the input file, a photo album model, and a GUI view. It
+ * can also follow the input file, so that snapshots taken by commands appended to the file while
+ * the program runs are added to the ones the user can move through.
  */
 public class InteractiveController implements IController, Features {
+  private static final long FOLLOW_INTERVAL_MILLIS = 500;
+
   private IPhotoAlbum model;
   private String fileName;
+  private LoadMode loadMode;
+  private boolean follow;
+  private boolean optimize;
   private GUIView view;
+  private ISnapshotStore snapshots;
   private int currentPhoto;
+  private boolean showing;
 
   /**
    * Constructs an InteractiveController instantiated to the given input file name, shapes photo
@@ -26,27 +45,78 @@ public class InteractiveController implements IController, Features {
    * @param view (GUIView) the GUI view to display the output.
    */
   public InteractiveController(String input, IPhotoAlbum model, GUIView view) {
+    this(input, model, view, LoadMode.STREAM);
+  }
+
+  /**
+   * Constructs an InteractiveController instantiated to the given input file name, shapes photo
+   * album model, GUI view, and way to load the input file.
+   * @param input (String) name of the input file to be read from.
+   * @param model (IPhotoAlbum) the shapes photo album model for the program.
+   * @param view (GUIView) the GUI view to display the output.
+   * @param loadMode (LoadMode) how to load the input file.
+   */
+  public InteractiveController(String input, IPhotoAlbum model, GUIView view, LoadMode loadMode) {
+    this(input, model, view, loadMode, false);
+  }
+
+  /**
+   * Constructs an InteractiveController instantiated to the given input file name, shapes photo
+   * album model, GUI view, way to load the input file, and whether to follow the input file. A
+   * followed file is checked for appended commands every FOLLOW_INTERVAL_MILLIS milliseconds, and
+   * is read in complete lines only instead of with the load mode.
+   * @param input (String) name of the input file to be read from.
+   * @param model (IPhotoAlbum) the shapes photo album model for the program.
+   * @param view (GUIView) the GUI view to display the output.
+   * @param loadMode (LoadMode) how to load the input file.
+   * @param follow (boolean) whether to keep reading commands appended to the input file.
+   */
+  public InteractiveController(String input, IPhotoAlbum model, GUIView view, LoadMode loadMode,
+                               boolean follow) {
+    this(input, model, view, loadMode, follow, false);
+  }
+
+  /**
+   * Constructs an InteractiveController instantiated to the given input file name, shapes photo
+   * album model, GUI view, way to load the input file, whether to follow the input file, and
+   * whether to leave out commands in the input file that make no difference to any snapshot.
+   * @param input (String) name of the input file to be read from.
+   * @param model (IPhotoAlbum) the shapes photo album model for the program.
+   * @param view (GUIView) the GUI view to display the output.
+   * @param loadMode (LoadMode) how to load the input file.
+   * @param follow (boolean) whether to keep reading commands appended to the input file.
+   * @param optimize (boolean) whether to leave out commands that make no difference.
+   */
+  public InteractiveController(String input, IPhotoAlbum model, GUIView view, LoadMode loadMode,
+                               boolean follow, boolean optimize) {
     this.fileName = input;
     this.model = model;
     this.view = view;
+    this.loadMode = loadMode;
+    this.follow = follow;
+    this.optimize = optimize;
   }
 
   /**
    * A helper method that creates and sets up the view with the model information and all the
    * callbacks.
+   * @param snapshots (ISnapshotStore) the snapshots read from the input file.
    */
-  private void setView() {
-    // Create and provide view with model information and set up the first snapshot
-    this.view.produceView(this.model.getSnapshots());
-    this.view.setShapeInformation(this.model.getSnapshots().get(0).getID(),
-            this.model.getSnapshots().get(0).getDescription());
-    this.view.paintSnapshot(this.model.getSnapshots().get(0).getShapes());
+  private void setView(ISnapshotStore snapshots) {
+    // Navigate through the snapshot store instead of copying its list of snapshots
+    this.snapshots = snapshots;
+
+    // Create and provide view with model information
+    this.view.produceView(this.snapshots.asList());
 
     // Provide view with all the callbacks
     this.view.addFeatures(this);
 
-    // Set current photo to be the first snapshot
+    // Set current photo to be the first snapshot, once there is one
     this.currentPhoto = 0;
+    if (this.snapshots.size() > 0) {
+      this.updateView(1);
+    }
   }
 
   @Override
@@ -55,11 +125,85 @@ public class InteractiveController implements IController, Features {
     File input = new File(this.fileName);
 
     // Read input text file and update model accordingly
-    PhotoFileReader fileReader = new PhotoFileReader(input, this.model);
-    fileReader.parsePhotoFile();
+    PhotoFileReader fileReader = new PhotoFileReader(input, this.model, this.loadMode,
+            CommandCompiler.DEFAULT_CACHE_DIRECTORY, this.optimize);
+    if (!this.follow) {
+      fileReader.parsePhotoFile();
+      this.reportLoad(fileReader);
+      this.setView(fileReader.getSnapshotStore());
+      return;
+    }
+
+    // Read what the file has so far, then keep checking for appended commands in the background
+    try {
+      fileReader.readAppended();
+    } catch (NoSuchFileException e) {
+      System.out.println("Could not find input file!");
+      System.exit(1);
+    } catch (IOException e) {
+      System.out.println("Could not read input file!");
+      System.exit(1);
+    }
+    this.setView(fileReader.getSnapshotStore());
+    ScheduledExecutorService follower = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "command-file-follower");
+      thread.setDaemon(true);
+      return thread;
+    });
+    follower.scheduleWithFixedDelay(() -> this.readAppended(fileReader), FOLLOW_INTERVAL_MILLIS,
+            FOLLOW_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
 
-    // Set up the view
-    this.setView();
+  /**
+   * A helper method that prints the queue occupancy of the load to standard error, if the input
+   * file was loaded with LoadMode.PIPELINED.
+   * @param fileReader (PhotoFileReader) the reader that loaded the input file.
+   */
+  private void reportLoad(PhotoFileReader fileReader) {
+    if (fileReader.getPipelineStats() != null) {
+      System.err.println("Load pipeline: " + fileReader.getPipelineStats());
+    }
+  }
+
+  /**
+   * A helper method that applies the commands appended to the followed file to the model, and
+   * lets the view know about any new snapshots. Runs on the background thread following the file.
+   * An exception thrown from here stops the file from being followed, so each one is reported
+   * first; snapshots taken by the appended lines before the one that failed are still shown.
+   * @param fileReader (PhotoFileReader) the reader following the file.
+   * @throws UncheckedIOException if the file cannot be read, which stops following it.
+   * @throws RuntimeException if an appended line cannot be parsed or applied to the model, which
+   *                          stops following it.
+   */
+  private void readAppended(PhotoFileReader fileReader) throws UncheckedIOException,
+          RuntimeException {
+    int before = this.snapshots.size();
+    try {
+      fileReader.readAppended();
+    } catch (IOException e) {
+      System.out.println("Could not read input file! No longer following it.");
+      throw new UncheckedIOException(e);
+    } catch (RuntimeException e) {
+      System.out.println("Could not apply the commands appended to the input file! No longer "
+              + "following it.");
+      throw e;
+    } finally {
+      if (this.snapshots.size() > before) {
+        SwingUtilities.invokeLater(this::snapshotsAdded);
+      }
+    }
+  }
+
+  /**
+   * A helper method that shows the first snapshot once there is one, or otherwise lets the view
+   * draw the new snapshots after the one shown ahead of time. Runs on the event dispatch thread.
+   */
+  private void snapshotsAdded() {
+    if (!this.showing) {
+      this.updateView(1);
+    } else {
+      this.view.preloadSnapshots(this.currentPhoto, 1);
+    }
   }
 
   @Override
@@ -72,18 +216,22 @@ public class InteractiveController implements IController, Features {
     // Update the current view to the previous snapshot
     else {
       this.currentPhoto -= 1;
-      this.updateView();
+      this.updateView(-1);
     }
   }
 
   @Override
   public void menu() {
-    List<Snapshot> snapshot = this.model.getSnapshots();
+    // Nothing to choose from until the followed file takes a snapshot
+    if (this.snapshots.size() == 0) {
+      this.view.displayErrorMessage();
+      return;
+    }
 
-    // Get all the snapshot IDs
-    Object[] options = new String[snapshot.size()];
-    for (int i = 0; i < snapshot.size(); i++) {
-      options[i] = snapshot.get(i).getID();
+    // Get all the snapshot IDs - no need to build the snapshots themselves
+    Object[] options = new String[this.snapshots.size()];
+    for (int i = 0; i < options.length; i++) {
+      options[i] = this.snapshots.getID(i);
     }
 
     // Display snapshot IDs as options in menu
@@ -92,21 +240,21 @@ public class InteractiveController implements IController, Features {
     if (selected >= 0) {
       // Update current view
       this.currentPhoto = selected;
-      this.updateView();
+      this.updateView(0);
     }
   }
 
   @Override
   public void nextSnapshot() {
     // Show message to user if at end of photo album and there is no more "next" snapshot
-    if (this.currentPhoto == this.model.getSnapshots().size() - 1) {
+    if (this.currentPhoto >= this.snapshots.size() - 1) {
       this.view.displayErrorMessage();
     }
 
     // Update the current view to the next snapshot
     else {
       this.currentPhoto += 1;
-      this.updateView();
+      this.updateView(1);
     }
   }
 
@@ -117,12 +265,16 @@ public class InteractiveController implements IController, Features {
 
   /**
    * A helper method that updates the view with the desired snapshot information after a change
-   * has been made.
+   * has been made, and lets the view prepare the snapshots the user is likely to move to next.
+   * @param direction (int) direction the user moved in: negative for backwards, positive for
+   *                  forwards, 0 if unknown.
    */
-  private void updateView() {
-    this.view.paintSnapshot(this.model.getSnapshots().get(this.currentPhoto).getShapes());
-    this.view.setShapeInformation(this.model.getSnapshots().get(this.currentPhoto).getID(),
-            this.model.getSnapshots().get(this.currentPhoto).getDescription());
+  private void updateView(int direction) {
+    Snapshot snapshot = this.snapshots.get(this.currentPhoto);
+    this.view.paintSnapshot(snapshot, this.currentPhoto);
+    this.view.setShapeInformation(snapshot.getID(), snapshot.getDescription());
+    this.view.preloadSnapshots(this.currentPhoto, direction);
+    this.showing = true;
   }
 }
 
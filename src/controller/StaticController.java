@@ -1,9 +1,17 @@
 package controller;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 import model.IPhotoAlbum;
+import model.ISnapshotStore;
+import model.Snapshot;
+import util.CommandCompiler;
+import util.LoadMode;
 import util.PhotoFileReader;
+import view.IStreamingView;
 import view.IView;
 
 /**
@@ -13,7 +21,10 @@ import view.IView;
 public class StaticController implements IController {
   private IPhotoAlbum model;
   private String fileName;
+  private LoadMode loadMode;
   private IView view;
+  private boolean optimize;
+  private boolean stream;
 
   /**
    * Constructs a StaticController instantiated to the given input file name, shapes photo album
@@ -23,30 +34,147 @@ public class StaticController implements IController {
    * @param view (IView) the static view to display the output.
    */
   public StaticController(String input, IPhotoAlbum model, IView view) {
+    this(input, model, view, LoadMode.STREAM);
+  }
+
+  /**
+   * Constructs a StaticController instantiated to the given input file name, shapes photo album
+   * model, static view, and way to load the input file.
+   * @param input (String) name of the input file to read from.
+   * @param model (IPhotoAlbum) the shapes photo album model for the program.
+   * @param view (IView) the static view to display the output.
+   * @param loadMode (LoadMode) how to load the input file.
+   */
+  public StaticController(String input, IPhotoAlbum model, IView view, LoadMode loadMode) {
+    this(input, model, view, loadMode, false);
+  }
+
+  /**
+   * Constructs a StaticController instantiated to the given input file name, shapes photo album
+   * model, static view, way to load the input file, and whether to leave out commands in the
+   * input file that make no difference to any snapshot.
+   * @param input (String) name of the input file to read from.
+   * @param model (IPhotoAlbum) the shapes photo album model for the program.
+   * @param view (IView) the static view to display the output.
+   * @param loadMode (LoadMode) how to load the input file.
+   * @param optimize (boolean) whether to leave out commands that make no difference.
+   */
+  public StaticController(String input, IPhotoAlbum model, IView view, LoadMode loadMode,
+                          boolean optimize) {
+    this(input, model, view, loadMode, optimize, false);
+  }
+
+  /**
+   * Constructs a StaticController instantiated to the given input file name, shapes photo album
+   * model, static view, way to load the input file, whether to leave out commands in the input
+   * file that make no difference to any snapshot, and whether to stream snapshots to the view.
+   * When streaming, each snapshot is written out by the view as soon as it is taken and is not
+   * kept by the model, so the whole album is never held in memory.
+   * @param input (String) name of the input file to read from.
+   * @param model (IPhotoAlbum) the shapes photo album model for the program.
+   * @param view (IView) the static view to display the output.
+   * @param loadMode (LoadMode) how to load the input file.
+   * @param optimize (boolean) whether to leave out commands that make no difference.
+   * @param stream (boolean) whether to stream snapshots to the view as they are taken.
+   * @throws IllegalArgumentException if asked to stream to a view that cannot be streamed to.
+   */
+  public StaticController(String input, IPhotoAlbum model, IView view, LoadMode loadMode,
+                          boolean optimize, boolean stream) throws IllegalArgumentException {
+    if (stream && !(view instanceof IStreamingView)) {
+      throw new IllegalArgumentException("Only streaming views can be streamed to!");
+    }
     this.fileName = input;
     this.model = model;
     this.view = view;
+    this.loadMode = loadMode;
+    this.optimize = optimize;
+    this.stream = stream;
   }
 
   /**
    * A helper method that creates the view with the model information.
+   * @param snapshots (List</Snapshot>) the snapshots read from the input file.
    */
-  private void setView() {
+  private void setView(List<Snapshot> snapshots) {
     // Provide view with model information
-    this.view.produceView(this.model.getSnapshots());
+    this.view.produceView(snapshots);
+  }
+
+  /**
+   * A helper method that reads the input file while the view writes out each snapshot as soon as
+   * it is taken. The input file is checked before the output file is created, so a missing input
+   * file does not leave an empty output file behind.
+   * @param input (File) the input file.
+   */
+  private void streamView(File input) {
+    if (!input.isFile()) {
+      System.out.println("Could not find input file!");
+      System.exit(1);
+    } else if (!input.canRead()) {
+      System.out.println("Could not read input file!");
+      System.exit(1);
+    }
+
+    IStreamingView streamingView = (IStreamingView) this.view;
+    try {
+      streamingView.startView();
+      this.model.setSnapshotWriter(streamingView);
+      PhotoFileReader fileReader = new PhotoFileReader(input, this.model, this.loadMode,
+              CommandCompiler.DEFAULT_CACHE_DIRECTORY, this.optimize);
+      try {
+        fileReader.parsePhotoFile();
+      } finally {
+        this.model.setSnapshotWriter(null);
+      }
+      this.reportLoad(fileReader);
+
+      // Indexed files keep their snapshots in the index instead of the model
+      ISnapshotStore snapshots = fileReader.getSnapshotStore();
+      for (int i = 0; i < snapshots.size(); i++) {
+        streamingView.write(snapshots.get(i));
+      }
+      streamingView.finishView();
+    } catch (IOException | UncheckedIOException e) {
+      System.out.println("Could not create or write to the desired output file!");
+    } finally {
+      // Whatever stopped the view from being finished, keep what was written and close the file
+      try {
+        streamingView.abortView();
+      } catch (IOException e) {
+        System.out.println("Could not close the desired output file!");
+      }
+    }
+  }
+
+  /**
+   * A helper method that reports how the load of the input file went, once it is done. Only
+   * pipelined loads have anything to report: how full the queue between reading and applying
+   * commands was, which shows the slower of the two.
+   * @param fileReader (PhotoFileReader) the reader that loaded the input file.
+   */
+  private void reportLoad(PhotoFileReader fileReader) {
+    if (fileReader.getPipelineStats() != null) {
+      System.err.println("Load pipeline: " + fileReader.getPipelineStats());
+    }
   }
 
   @Override
   public void go() {
     // Create new File object based on input text file
     File input = new File(this.fileName);
+    if (this.stream) {
+      this.streamView(input);
+      return;
+    }
 
     // Read input text file and update model accordingly
-    PhotoFileReader fileReader = new PhotoFileReader(input, this.model);
+    PhotoFileReader fileReader = new PhotoFileReader(input, this.model, this.loadMode,
+            CommandCompiler.DEFAULT_CACHE_DIRECTORY, this.optimize);
     fileReader.parsePhotoFile();
+    this.reportLoad(fileReader);
 
     // Set up the view
-    this.setView();
+    this.setView(fileReader.getSnapshotStore().asList());
   }
 }
 
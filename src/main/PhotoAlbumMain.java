@@ -7,6 +7,7 @@ import controller.InteractiveController;
 import controller.StaticController;
 import model.IPhotoAlbum;
 import model.ShapesPhotoAlbumModel;
+import util.LoadMode;
 import view.GUIView;
 import view.GraphicalView;
 import view.IView;
@@ -23,12 +24,19 @@ public class PhotoAlbumMain {
     // Check command line parameter usage
     if (args.length < 4) {
       System.out.println("Usage: MyProgram -in \"name-of-command-file\" -view \"type-of-view\" "
-              + "[-out \"where-output-should-go\"] [xmax] [ymax]");
+              + "[-out \"where-output-should-go\"] [-load \"load-mode\"] [-follow] [-optimize] "
+              + "[-stream] [-dedupe] [-compact] [-lookahead \"snapshots\"] "
+              + "[-renderthreads \"threads\"] [xmax] [ymax]");
       System.exit(1);
     }
 
     // Map to pair arguments (input, output, view, min/max)
     Map<String, String> instructions = new HashMap<>();
+    boolean follow = false;
+    boolean optimize = false;
+    boolean stream = false;
+    boolean dedupe = false;
+    boolean compact = false;
 
     // Parse command line arguments and save arguments as pairs
     for (int i = 0; i < args.length; i++) {
@@ -37,17 +45,48 @@ public class PhotoAlbumMain {
         args[i] = "-view";
       }
 
-      // Add pair arguments to map (input/output/view/min & max)
-      if (args[i].equals("-in") || args[i].equals("-view") || args[i].equals("-out")) {
+      // Add pair arguments to map (input/output/view/load mode/pre-rendering), skipping the
+      // second one of the pair so that a number there is not taken as xmax
+      if (args[i].equals("-in") || args[i].equals("-view") || args[i].equals("-out")
+              || args[i].equals("-load") || args[i].equals("-lookahead")
+              || args[i].equals("-renderthreads")) {
         try {
           instructions.put(args[i], args[i + 1]);
+          i++;
         }
 
         // Ensure each argument has a pair
         catch (IndexOutOfBoundsException e) {
-          System.out.println("Input, output, and view all require pairs of arguments.");
+          System.out.println("Input, output, view, load mode, look-ahead, and render threads all "
+                  + "require pairs of arguments.");
           System.exit(1);
         }
+        continue;
+      }
+
+      // Keep reading commands appended to the input file if asked to
+      if (args[i].equals("-follow")) {
+        follow = true;
+      }
+
+      // Leave out commands that make no difference to any snapshot if asked to
+      if (args[i].equals("-optimize")) {
+        optimize = true;
+      }
+
+      // Write each snapshot of a web view out as soon as it is taken if asked to
+      if (args[i].equals("-stream")) {
+        stream = true;
+      }
+
+      // Write each distinct shape of a web view only once if asked to
+      if (args[i].equals("-dedupe")) {
+        dedupe = true;
+      }
+
+      // Write a web view without pretty-printing if asked to
+      if (args[i].equals("-compact")) {
+        compact = true;
       }
 
       // Set xmax and ymax if given
@@ -79,6 +118,61 @@ public class PhotoAlbumMain {
       System.exit(1);
     }
 
+    // Read the input file as a stream unless asked to load it another way
+    LoadMode loadMode = LoadMode.STREAM;
+    if (instructions.containsKey("-load")) {
+      switch (instructions.get("-load").toLowerCase()) {
+        case "stream":
+          break;
+        case "mmap":
+          loadMode = LoadMode.MEMORY_MAPPED;
+          break;
+        case "parallel":
+          loadMode = LoadMode.PARALLEL;
+          break;
+        case "pipelined":
+          loadMode = LoadMode.PIPELINED;
+          break;
+        case "compiled":
+          loadMode = LoadMode.COMPILED;
+          break;
+        case "indexed":
+          loadMode = LoadMode.INDEXED;
+          break;
+        case "partitioned":
+          loadMode = LoadMode.PARTITIONED;
+          break;
+        default:
+          System.out.println("That is not a valid load mode! Please use stream, mmap, "
+                  + "parallel, pipelined, compiled, indexed, or partitioned.");
+          System.exit(1);
+      }
+    }
+
+    // Indexed loads build snapshots from the file itself, so there is nothing to optimize
+    if (optimize && loadMode == LoadMode.INDEXED) {
+      System.out.println("Optimizing cannot be used with the indexed load mode!");
+      System.exit(1);
+    }
+
+    // Draw snapshots of a graphical view ahead of time as asked to, or as much as by default
+    int lookAhead = GraphicalView.DEFAULT_LOOK_AHEAD;
+    int renderThreads = GraphicalView.DEFAULT_RENDER_THREADS;
+    try {
+      if (instructions.containsKey("-lookahead")) {
+        lookAhead = Integer.parseInt(instructions.get("-lookahead"));
+      }
+      if (instructions.containsKey("-renderthreads")) {
+        renderThreads = Integer.parseInt(instructions.get("-renderthreads"));
+      }
+    } catch (NumberFormatException e) {
+      lookAhead = -1;
+    }
+    if (lookAhead < 0 || renderThreads < 0) {
+      System.out.println("Look-ahead and render threads must be non-negative integers!");
+      System.exit(1);
+    }
+
     // Create model
     IPhotoAlbum model = new ShapesPhotoAlbumModel();
 
@@ -86,16 +180,17 @@ public class PhotoAlbumMain {
     switch(instructions.get("-view").toLowerCase()) {
       case "web":
         IView webView = new WebView("cs5004 Shapes Photo Album Web Viewer",
-                instructions.get("-out"), xMax, yMax);
-        StaticController webController = new StaticController(instructions.get("-in"), model, webView);
+                instructions.get("-out"), xMax, yMax, dedupe, compact);
+        StaticController webController = new StaticController(instructions.get("-in"), model,
+                webView, loadMode, optimize, stream);
         webController.go();
         break;
 
       case "graphical":
         GUIView graphicalView = new GraphicalView("cs5004 Shapes Photo Album Graphical Viewer",
-                xMax, yMax);
-        InteractiveController graphicalController = new InteractiveController(instructions.get("-in"),
-                model, graphicalView);
+                xMax, yMax, GraphicalView.DEFAULT_IMAGE_CACHE_BUDGET, lookAhead, renderThreads);
+        InteractiveController graphicalController = new InteractiveController(
+                instructions.get("-in"), model, graphicalView, loadMode, follow, optimize);
         graphicalController.go();
         break;
 
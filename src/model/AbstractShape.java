@@ -1,6 +1,7 @@
 package model;
 
 import java.awt.*;
+import java.io.IOException;
 
 /**
  * This abstract class contains implementation for methods from the IShape interface that are
@@ -70,4 +71,124 @@ public abstract class AbstractShape implements IShape {
   public Color getColor() {
     return this.color;
   }
+
+  @Override
+  public String toSVG() {
+    StringBuilder svg = new StringBuilder();
+    try {
+      this.appendSVG(svg);
+    } catch (IOException e) {
+      // Appending to a StringBuilder never fails
+      throw new IllegalStateException("Could not create the SVG String!", e);
+    }
+    return svg.toString();
+  }
+
+  @Override
+  public void appendSVG(Appendable out) throws IOException {
+    this.appendSVG(out, this.name);
+  }
+
+  /**
+   * Writes the id of an SVG element to the given output, as id="id" preceded by a space, or
+   * nothing if there is no id.
+   * @param out (Appendable) where the id is written to.
+   * @param id (String) the id, or null if there is none.
+   * @throws IOException if the id could not be written to the output.
+   */
+  protected static void appendID(Appendable out, String id) throws IOException {
+    if (id != null) {
+      out.append(" id=\"").append(id).append('"');
+    }
+  }
+
+  /**
+   * Writes an SVG attribute with the given name and whole number value to the given output, as
+   * name="value.0" preceded by a space.
+   * @param out (Appendable) where the attribute is written to.
+   * @param name (String) name of the attribute.
+   * @param value (int) value of the attribute.
+   * @throws IOException if the attribute could not be written to the output.
+   */
+  protected static void appendAttribute(Appendable out, String name, int value)
+          throws IOException {
+    out.append(' ').append(name).append("=\"");
+    appendInt(out, value);
+    out.append(".0\"");
+  }
+
+  /**
+   * Writes an SVG attribute with the given name and whole number value to the given output, as
+   * name="value" preceded by a space.
+   * @param out (Appendable) where the attribute is written to.
+   * @param name (String) name of the attribute.
+   * @param value (int) value of the attribute.
+   * @throws IOException if the attribute could not be written to the output.
+   */
+  protected static void appendCompactAttribute(Appendable out, String name, int value)
+          throws IOException {
+    out.append(' ').append(name).append("=\"");
+    appendInt(out, value);
+    out.append('"');
+  }
+
+  /**
+   * Writes the CSS class of the fill color of the shape to the given output, as class="crrggbb"
+   * preceded by a space, with the color in hex digits.
+   * @param out (Appendable) where the class is written to.
+   * @throws IOException if the class could not be written to the output.
+   */
+  protected void appendFillClass(Appendable out) throws IOException {
+    out.append(" class=\"c");
+    int rgb = this.color.getRGB();
+    for (int shift = 20; shift >= 0; shift -= 4) {
+      out.append(Character.forDigit((rgb >> shift) & 0xF, 16));
+    }
+    out.append('"');
+  }
+
+  /**
+   * Writes the fill color of the shape to the given output, as fill="rgb(r,g,b)" preceded by a
+   * space.
+   * @param out (Appendable) where the fill color is written to.
+   * @throws IOException if the fill color could not be written to the output.
+   */
+  protected void appendFill(Appendable out) throws IOException {
+    out.append(" fill=\"rgb(");
+    appendInt(out, this.color.getRed());
+    out.append(',');
+    appendInt(out, this.color.getGreen());
+    out.append(',');
+    appendInt(out, this.color.getBlue());
+    out.append(")\"");
+  }
+
+  /**
+   * Writes the given number to the given output in decimal. The digits are written one at a time,
+   * so no String is made for the number.
+   * @param out (Appendable) where the number is written to.
+   * @param value (int) the number.
+   * @throws IOException if the number could not be written to the output.
+   */
+  protected static void appendInt(Appendable out, int value) throws IOException {
+    // A StringBuilder already writes numbers without making a String
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+      return;
+    }
+
+    // A long, so that the smallest int can be made positive
+    long rest = value;
+    if (rest < 0) {
+      out.append('-');
+      rest = -rest;
+    }
+    long digit = 1;
+    while (digit * 10 <= rest) {
+      digit *= 10;
+    }
+    for (; digit > 0; digit /= 10) {
+      out.append((char) ('0' + rest / digit % 10));
+    }
+  }
 }
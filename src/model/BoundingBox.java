@@ -0,0 +1,135 @@
+package model;
+
+/**
+ * This class represents an axis-aligned bounding box in 2D space. A BoundingBox has the x- and
+ * y-coordinates of its min corner, a width, and a height. It covers every point from its min corner
+ * up to and including its max corner.
+ */
+public class BoundingBox {
+  private final int x;
+  private final int y;
+  private final int width;
+  private final int height;
+
+  /**
+   * Constructs a BoundingBox instantiated to the given min corner, width, and height. Width and
+   * height must be non-negative.
+   * @param x (int) x-coordinate of the min corner.
+   * @param y (int) y-coordinate of the min corner.
+   * @param width (int) width of the bounding box (non-negative).
+   * @param height (int) height of the bounding box (non-negative).
+   * @throws IllegalArgumentException if width or height is negative.
+   */
+  public BoundingBox(int x, int y, int width, int height) throws IllegalArgumentException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Width and height of bounding box cannot be negative!");
+    }
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Returns a BoundingBox that covers the given corners. Values that do not fit in an int are cut
+   * off at the smallest or largest int, so very large shapes still get a usable bounding box.
+   * @param minX (long) x-coordinate of the min corner.
+   * @param minY (long) y-coordinate of the min corner.
+   * @param maxX (long) x-coordinate of the max corner (not less than minX).
+   * @param maxY (long) y-coordinate of the max corner (not less than minY).
+   * @return (BoundingBox) bounding box that covers the given corners.
+   */
+  static BoundingBox fromCorners(long minX, long minY, long maxX, long maxY) {
+    int x = clamp(minX);
+    int y = clamp(minY);
+    return new BoundingBox(x, y, clamp(clamp(maxX) - (long) x), clamp(clamp(maxY) - (long) y));
+  }
+
+  /**
+   * A helper method that cuts the given value off at the smallest or largest int.
+   * @param value (long) the value to cut off.
+   * @return (int) the closest int to the given value.
+   */
+  private static int clamp(long value) {
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+  }
+
+  /**
+   * Returns the x-coordinate of the min corner.
+   * @return (int) x-coordinate of the min corner.
+   */
+  public int getX() {
+    return this.x;
+  }
+
+  /**
+   * Returns the y-coordinate of the min corner.
+   * @return (int) y-coordinate of the min corner.
+   */
+  public int getY() {
+    return this.y;
+  }
+
+  /**
+   * Returns the width of the bounding box.
+   * @return (int) width of the bounding box.
+   */
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the bounding box.
+   * @return (int) height of the bounding box.
+   */
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Returns the x-coordinate of the max corner. Returned as a long so it never overflows.
+   * @return (long) x-coordinate of the max corner.
+   */
+  public long getMaxX() {
+    return (long) this.x + this.width;
+  }
+
+  /**
+   * Returns the y-coordinate of the max corner. Returned as a long so it never overflows.
+   * @return (long) y-coordinate of the max corner.
+   */
+  public long getMaxY() {
+    return (long) this.y + this.height;
+  }
+
+  /**
+   * Checks whether this bounding box and the given one share at least one point.
+   * @param other (BoundingBox) the other bounding box.
+   * @return (boolean) true if the bounding boxes intersect, false otherwise.
+   */
+  public boolean intersects(BoundingBox other) {
+    return this.x <= other.getMaxX() && other.x <= this.getMaxX()
+            && this.y <= other.getMaxY() && other.y <= this.getMaxY();
+  }
+
+  /**
+   * Checks whether the given point is inside this bounding box (edges included).
+   * @param x (int) x-coordinate of the point.
+   * @param y (int) y-coordinate of the point.
+   * @return (boolean) true if the point is inside the bounding box, false otherwise.
+   */
+  public boolean contains(int x, int y) {
+    return this.x <= x && x <= this.getMaxX() && this.y <= y && y <= this.getMaxY();
+  }
+
+  /**
+   * Returns a String representation of this BoundingBox. Formatted as: min corner (x, y), width,
+   * and height.
+   * @return (String) represents BoundingBox min corner, width, and height.
+   */
+  @Override
+  public String toString() {
+    return "Min corner: (" + this.x + ".0, " + this.y + ".0), Width: " + this.width
+            + ".0, Height: " + this.height + ".0";
+  }
+}
@@ -1,5 +1,7 @@
 package model;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -68,6 +70,61 @@ public interface IPhotoAlbum {
    */
   void setShapeSize(String shapeName, int sizeX, int sizeY);
 
+  /**
+   * Returns the int ID of the given shape name, giving the name a new ID if it has none yet. IDs
+   * stay the same for the life of the photo album (resets included), so callers handling many
+   * commands can look each name up once and then use the ID-based methods below, which do not
+   * have to look the name up again.
+   * @param shapeName (String) name of the shape (non-null).
+   * @return (int) ID of the shape name.
+   * @throws IllegalArgumentException if the shape name is null.
+   */
+  int getShapeID(String shapeName) throws IllegalArgumentException;
+
+  /**
+   * Returns the int ID of the given shape name, or -1 if the name has none. Unlike getShapeID,
+   * never gives the name a new ID, so looking up names that never had a shape does not make the
+   * photo album hold on to them.
+   * @param shapeName (String) name of the shape.
+   * @return (int) ID of the shape name, or -1 if it has none.
+   */
+  int findShapeID(String shapeName);
+
+  /**
+   * Removes the shape with the given name ID from the photo album. Does nothing if no shape in
+   * the album has that name.
+   * @param shapeID (int) ID of the name of the shape to be removed, from getShapeID.
+   */
+  void removeShape(int shapeID);
+
+  /**
+   * Changes the color of the shape with the given name ID to the given R,G,B color intensity
+   * values. Does nothing if no shape in the album has that name.
+   * @param shapeID (int) ID of the name of the shape, from getShapeID.
+   * @param r (int) intensity of the color red (between 0 and 255, inclusive).
+   * @param g (int) intensity of the color green (between 0 and 255, inclusive).
+   * @param b (int) intensity of the color blue (between 0 and 255, inclusive).
+   */
+  void changeShapeColor(int shapeID, int r, int g, int b);
+
+  /**
+   * Sets the given x- and y-coordinates to the shape with the given name ID. Does nothing if no
+   * shape in the album has that name.
+   * @param shapeID (int) ID of the name of the shape, from getShapeID.
+   * @param x (int) x-coordinate.
+   * @param y (int) y-coordinate.
+   */
+  void moveShape(int shapeID, int x, int y);
+
+  /**
+   * Sets the size of the shape with the given name ID to sizeX and sizeY. Does nothing if no
+   * shape in the album has that name.
+   * @param shapeID (int) ID of the name of the shape, from getShapeID.
+   * @param sizeX (int) horizontal size (non-negative - width for rectangles, X radius for ovals).
+   * @param sizeY (int) vertical size (non-negative - height for rectangles, Y radius for ovals).
+   */
+  void setShapeSize(int shapeID, int sizeX, int sizeY);
+
   /**
    * Resets the photo album to a blank slate. Clears any and all shapes and snapshots.
    */
@@ -81,17 +138,68 @@ public interface IPhotoAlbum {
   void takeSnapshot(String description);
 
   /**
-   * Returns a list of all snapshots taken.
-   * @return (List</Snapshot>) list of all snapshots taken.
+   * Makes the photo album hand every snapshot taken from now on to the given writer instead of
+   * saving it, so the album never holds more than its current shapes. Passing null goes back to
+   * saving snapshots. A snapshot that the writer fails to write makes takeSnapshot() throw an
+   * UncheckedIOException.
+   * @param writer (SnapshotWriter) receiver of the snapshots taken, or null to save them.
+   */
+  void setSnapshotWriter(SnapshotWriter writer);
+
+  /**
+   * Returns a read-only list of all snapshots taken. The shapes of each snapshot are read-only
+   * too, since unchanged shapes are shared between snapshots: changing them throws an
+   * UnsupportedOperationException.
+   * @return (List</Snapshot>) read-only list of all snapshots taken.
    */
   List<Snapshot> getSnapshots();
 
+  /**
+   * Returns the store that holds all snapshots taken. The store gives random access to snapshots
+   * by position or by ID without copying the list of snapshots.
+   * @return (ISnapshotStore) the store of all snapshots taken.
+   */
+  ISnapshotStore getSnapshotStore();
+
   /**
    * Returns a deep copied list of the shapes currently in the model.
    * @return (List</IShape>) deep copied list of shapes currently in the model.
    */
   List<IShape> getShapes();
 
+  /**
+   * Returns a read-only view of the shapes currently in the model, in the order they were added.
+   * Nothing is copied: the view and the shapes in it always show the current state of the model,
+   * and trying to change them throws an UnsupportedOperationException. Use getShapes() for a copy
+   * that does not change along with the model.
+   * @return (Collection</IShape>) read-only view of the shapes currently in the model.
+   */
+  Collection<IShape> getShapesView();
+
+  /**
+   * Returns the shapes currently in the model whose bounding boxes intersect the given rectangular
+   * region, bottom to top (in the order they are drawn). Shapes are read-only views like the ones
+   * from getShapesView(). Width and height must be non-negative.
+   * @param x (int) x-coordinate of the min corner of the region.
+   * @param y (int) y-coordinate of the min corner of the region.
+   * @param width (int) width of the region (non-negative).
+   * @param height (int) height of the region (non-negative).
+   * @return (List</IShape>) read-only views of the shapes in the region, bottom to top.
+   * @throws IllegalArgumentException if width or height is negative.
+   */
+  List<IShape> getShapesInRegion(int x, int y, int width, int height)
+          throws IllegalArgumentException;
+
+  /**
+   * Returns the top-most shape currently in the model whose bounding box contains the given point,
+   * or null if there is no such shape. The shape is a read-only view like the ones from
+   * getShapesView().
+   * @param x (int) x-coordinate of the point.
+   * @param y (int) y-coordinate of the point.
+   * @return (IShape) read-only view of the top-most shape at the point, or null if there is none.
+   */
+  IShape getShapeAt(int x, int y);
+
   /**
    * Returns a String representation of the model. Includes description of the shapes that are part
    * of the photo album and their details, as well as descriptions of model state changes taken
@@ -99,4 +207,12 @@ public interface IPhotoAlbum {
    * @return (String) represents the model state changes.
    */
   String getModelState();
+
+  /**
+   * Writes the same representation of the model as getModelState() to the given output. The model
+   * state is written piece by piece as it is created, so it is never held in memory as a whole.
+   * @param out (Appendable) where the model state is written to.
+   * @throws IOException if the model state could not be written to the output.
+   */
+  void writeModelState(Appendable out) throws IOException;
 }
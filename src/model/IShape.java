@@ -1,6 +1,7 @@
 package model;
 
 import java.awt.*;
+import java.io.IOException;
 
 /**
  * This interface contains all operations that all types of 2D shapes should support.
@@ -49,6 +50,11 @@ public interface IShape {
    */
   Color getColor();
 
+  /**
+   * Returns the smallest axis-aligned box that covers the whole shape.
+   * @return (BoundingBox) bounding box of the shape.
+   */
+  BoundingBox getBounds();
 
   /**
    * Makes a deep copy of the current shape.
@@ -62,6 +68,35 @@ public interface IShape {
    */
   String toSVG();
 
+  /**
+   * Writes the same SVG markup as toSVG() to the given output, without building a String for it
+   * first.
+   * @param out (Appendable) where the SVG markup is written to.
+   * @throws IOException if the SVG markup could not be written to the output.
+   */
+  void appendSVG(Appendable out) throws IOException;
+
+  /**
+   * Writes the SVG markup of the shape to the given output like appendSVG(), but with the given
+   * id on the element instead of the name of the shape. Shapes that look the same give the same
+   * markup for the same id.
+   * @param out (Appendable) where the SVG markup is written to.
+   * @param id (String) id of the element, or null to leave the id out.
+   * @throws IOException if the SVG markup could not be written to the output.
+   */
+  void appendSVG(Appendable out, String id) throws IOException;
+
+  /**
+   * Writes compact SVG markup of the shape to the given output: a single self-closing element
+   * with whole numbers, and no whitespace around it. The fill color is given as a CSS class named
+   * c followed by the six hex digits of the color (such as c80331a), which must be defined
+   * wherever the markup is used.
+   * @param out (Appendable) where the SVG markup is written to.
+   * @param id (String) id of the element, or null to leave the id out.
+   * @throws IOException if the SVG markup could not be written to the output.
+   */
+  void appendCompactSVG(Appendable out, String id) throws IOException;
+
   /**
    * Allows this shape to be drawable on components.
    * @param g (Graphics) the Graphics object for drawing.
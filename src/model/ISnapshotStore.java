@@ -0,0 +1,55 @@
+package model;
+
+import java.util.List;
+
+/**
+ * This interface contains all operations that all types of snapshot stores should support. A
+ * snapshot store holds the snapshots taken by a photo album in the order they were taken, and
+ * gives random access to them by position or by ID.
+ */
+public interface ISnapshotStore {
+
+  /**
+   * Returns the number of snapshots in the store.
+   * @return (int) number of snapshots taken.
+   */
+  int size();
+
+  /**
+   * Returns the snapshot at the given position in the store.
+   * @param index (int) position of the snapshot, starting from 0.
+   * @return (Snapshot) the snapshot at the given position.
+   * @throws IndexOutOfBoundsException if there is no snapshot at the given position.
+   */
+  Snapshot get(int index) throws IndexOutOfBoundsException;
+
+  /**
+   * Returns the snapshot with the given ID, or null if no snapshot has that ID.
+   * @param id (String) the ID of the snapshot.
+   * @return (Snapshot) the snapshot with the given ID, or null if there is none.
+   */
+  Snapshot get(String id);
+
+  /**
+   * Returns the ID of the snapshot at the given position in the store, without building the
+   * snapshot itself.
+   * @param index (int) position of the snapshot, starting from 0.
+   * @return (String) the ID of the snapshot at the given position.
+   * @throws IndexOutOfBoundsException if there is no snapshot at the given position.
+   */
+  String getID(int index) throws IndexOutOfBoundsException;
+
+  /**
+   * Returns the position of the snapshot with the given ID, or -1 if no snapshot has that ID.
+   * @param id (String) the ID of the snapshot.
+   * @return (int) position of the snapshot with the given ID, or -1 if there is none.
+   */
+  int indexOf(String id);
+
+  /**
+   * Returns a read-only list view of the snapshots in the store. The view is not a copy, so it
+   * reflects snapshots taken after it was created.
+   * @return (List</Snapshot>) read-only view of all snapshots taken.
+   */
+  List<Snapshot> asList();
+}
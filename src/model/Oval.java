@@ -1,6 +1,7 @@
 package model;
 
 import java.awt.*;
+import java.io.IOException;
 
 /**
  * This class represents a 2D oval. An oval has a name, x- and y-coordinates in 2D space, x radius,
@@ -65,6 +66,19 @@ public class Oval extends AbstractShape {
             + this.getColor().getBlue() + ")";
   }
 
+  /**
+   * Returns the bounding box of the oval, which stretches the x radius and y radius from the center
+   * in each direction.
+   * @return (BoundingBox) bounding box of the oval.
+   */
+  @Override
+  public BoundingBox getBounds() {
+    long x = this.getPoint().getX();
+    long y = this.getPoint().getY();
+    return BoundingBox.fromCorners(x - this.xRadius, y - this.yRadius, x + this.xRadius,
+            y + this.yRadius);
+  }
+
   @Override
   public IShape cloneDeep() {
     IShape clonedOval = new Oval(this.getName(), this.getPoint().getX(), this.getPoint().getY(),
@@ -74,12 +88,27 @@ public class Oval extends AbstractShape {
   }
 
   @Override
-  public String toSVG() {
-    return String.format("\t\t<ellipse id=\"%s\" cx=\"%d.0\" cy=\"%d.0\" rx=\"%d.0\" ry=\"%d.0\""
-            + " fill=\"rgb(%d,%d,%d)\">\n\t\t</ellipse>\n", this.getName(), this.getPoint().getX(),
-            this.getPoint().getY(), this.xRadius, this.yRadius, this.getColor().getRed(),
-            this.getColor().getGreen(), this.getColor().getBlue());
+  public void appendSVG(Appendable out, String id) throws IOException {
+    out.append("\t\t<ellipse");
+    appendID(out, id);
+    appendAttribute(out, "cx", this.getPoint().getX());
+    appendAttribute(out, "cy", this.getPoint().getY());
+    appendAttribute(out, "rx", this.xRadius);
+    appendAttribute(out, "ry", this.yRadius);
+    this.appendFill(out);
+    out.append(">\n\t\t</ellipse>\n");
+  }
 
+  @Override
+  public void appendCompactSVG(Appendable out, String id) throws IOException {
+    out.append("<ellipse");
+    appendID(out, id);
+    appendCompactAttribute(out, "cx", this.getPoint().getX());
+    appendCompactAttribute(out, "cy", this.getPoint().getY());
+    appendCompactAttribute(out, "rx", this.xRadius);
+    appendCompactAttribute(out, "ry", this.yRadius);
+    this.appendFillClass(out);
+    out.append("/>");
   }
 
   @Override
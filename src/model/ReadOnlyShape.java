@@ -0,0 +1,129 @@
+package model;
+
+import java.awt.*;
+import java.io.IOException;
+
+/**
+ * This class represents a read-only view of a 2D shape. A ReadOnlyShape wraps another shape and
+ * exposes all of its attributes, but rejects any attempt to change them. Snapshots share these
+ * between each other so that shapes which did not change since the last snapshot are not copied
+ * again, and the photo album model hands them out so that its shapes can be read but only changed
+ * through the model.
+ */
+final class ReadOnlyShape implements IShape {
+  private final IShape shape;
+
+  /**
+   * Constructs a ReadOnlyShape that wraps the given shape. Changes made to the given shape by
+   * whoever owns it show through this wrapper.
+   * @param shape (IShape) the shape to be wrapped (non-null).
+   * @throws IllegalArgumentException if the given shape is null.
+   */
+  ReadOnlyShape(IShape shape) throws IllegalArgumentException {
+    if (shape == null) {
+      throw new IllegalArgumentException("Shape cannot be null!");
+    }
+    this.shape = shape;
+  }
+
+  /**
+   * Returns the wrapped shape, for the owner of the shape to change it.
+   * @return (IShape) the wrapped shape.
+   */
+  IShape getShape() {
+    return this.shape;
+  }
+
+  /**
+   * Read-only shapes cannot be moved.
+   * @param x (int) x-coordinate for the shape's point.
+   * @param y (int) y-coordinate for the shape's point.
+   * @throws UnsupportedOperationException always.
+   */
+  @Override
+  public void setPoint(int x, int y) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException("Shape " + this.getName() + " is read-only!");
+  }
+
+  /**
+   * Read-only shapes cannot change color.
+   * @param r (int) intensity of the color red (between 0 - 255, inclusive).
+   * @param g (int) intensity of the color green (between 0 - 255, inclusive).
+   * @param b (int) intensity of the color blue (between 0 - 255, inclusive).
+   * @throws UnsupportedOperationException always.
+   */
+  @Override
+  public void setColor(int r, int g, int b) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException("Shape " + this.getName() + " is read-only!");
+  }
+
+  /**
+   * Read-only shapes cannot be resized.
+   * @param sizeX (int) horizontal size of the shape.
+   * @param sizeY (int) vertical size of the shape.
+   * @throws UnsupportedOperationException always.
+   */
+  @Override
+  public void setSize(int sizeX, int sizeY) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException("Shape " + this.getName() + " is read-only!");
+  }
+
+  @Override
+  public String getName() {
+    return this.shape.getName();
+  }
+
+  @Override
+  public Point2D getPoint() {
+    return this.shape.getPoint();
+  }
+
+  @Override
+  public Color getColor() {
+    return this.shape.getColor();
+  }
+
+  @Override
+  public BoundingBox getBounds() {
+    return this.shape.getBounds();
+  }
+
+  /**
+   * Makes a deep copy of the wrapped shape. The copy is not read-only.
+   * @return (IShape) deep copy of the wrapped shape.
+   */
+  @Override
+  public IShape cloneDeep() {
+    return this.shape.cloneDeep();
+  }
+
+  @Override
+  public String toSVG() {
+    return this.shape.toSVG();
+  }
+
+  @Override
+  public void appendSVG(Appendable out) throws IOException {
+    this.shape.appendSVG(out);
+  }
+
+  @Override
+  public void appendSVG(Appendable out, String id) throws IOException {
+    this.shape.appendSVG(out, id);
+  }
+
+  @Override
+  public void appendCompactSVG(Appendable out, String id) throws IOException {
+    this.shape.appendCompactSVG(out, id);
+  }
+
+  @Override
+  public void draw(Graphics g) {
+    this.shape.draw(g);
+  }
+
+  @Override
+  public String toString() {
+    return this.shape.toString();
+  }
+}
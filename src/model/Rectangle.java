@@ -1,6 +1,7 @@
 package model;
 
 import java.awt.*;
+import java.io.IOException;
 
 /**
  * This class represents a 2D rectangle. A Rectangle has a name, x- and y-coordinates in 2D space,
@@ -64,6 +65,11 @@ public class Rectangle extends AbstractShape {
             this.getColor().getRed(), this.getColor().getGreen(), this.getColor().getBlue());
   }
 
+  @Override
+  public BoundingBox getBounds() {
+    return BoundingBox.fromCorners(this.getPoint().getX(), this.getPoint().getY(),
+            (long) this.getPoint().getX() + this.width, (long) this.getPoint().getY() + this.height);
+  }
 
   @Override
   public IShape cloneDeep() {
@@ -74,11 +80,27 @@ public class Rectangle extends AbstractShape {
   }
 
   @Override
-  public String toSVG() {
-    return String.format("\t\t<rect id=\"%s\" x=\"%d.0\" y=\"%d.0\" width=\"%d.0\" height=\"%d.0\""
-            + " fill=\"rgb(%d,%d,%d)\">\n\t\t</rect>\n", this.getName(), this.getPoint().getX(),
-            this.getPoint().getY(), this.width, this.height, this.getColor().getRed(),
-            this.getColor().getGreen(), this.getColor().getBlue());
+  public void appendSVG(Appendable out, String id) throws IOException {
+    out.append("\t\t<rect");
+    appendID(out, id);
+    appendAttribute(out, "x", this.getPoint().getX());
+    appendAttribute(out, "y", this.getPoint().getY());
+    appendAttribute(out, "width", this.width);
+    appendAttribute(out, "height", this.height);
+    this.appendFill(out);
+    out.append(">\n\t\t</rect>\n");
+  }
+
+  @Override
+  public void appendCompactSVG(Appendable out, String id) throws IOException {
+    out.append("<rect");
+    appendID(out, id);
+    appendCompactAttribute(out, "x", this.getPoint().getX());
+    appendCompactAttribute(out, "y", this.getPoint().getY());
+    appendCompactAttribute(out, "width", this.width);
+    appendCompactAttribute(out, "height", this.height);
+    this.appendFillClass(out);
+    out.append("/>");
   }
 
   @Override
@@ -0,0 +1,290 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents a spatial index over shapes. A ShapeGrid splits 2D space into square cells
+ * of the same size and remembers which cells each shape's bounding box covers, so finding the
+ * shapes in a region only has to look at the cells in that region. Shapes that would cover too
+ * many cells are kept in a separate list that every query looks at. Shapes are kept in the order
+ * they were added in, so later shapes are drawn on top of earlier ones.
+ */
+public class ShapeGrid {
+  private static final int MAX_CELLS_PER_SHAPE = 256;
+
+  private final int cellSize;
+  private final Map<Long, List<Entry>> cells;
+  private final Map<IShape, Entry> entries;
+  private final List<Entry> oversized;
+  private long nextOrder;
+  private int currentQuery;
+
+  /**
+   * Constructs an empty ShapeGrid instantiated to the given cell size. Cells should be about as
+   * large as the typical shape.
+   * @param cellSize (int) width and height of each cell (positive).
+   * @throws IllegalArgumentException if cell size is not positive.
+   */
+  public ShapeGrid(int cellSize) throws IllegalArgumentException {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("Cell size must be positive!");
+    }
+    this.cellSize = cellSize;
+    this.cells = new HashMap<>();
+    this.entries = new IdentityHashMap<>();
+    this.oversized = new ArrayList<>();
+  }
+
+  /**
+   * Constructs a ShapeGrid instantiated to the given cell size and containing the given shapes, in
+   * the order they are given.
+   * @param cellSize (int) width and height of each cell (positive).
+   * @param shapes (List</IShape>) shapes to be added to the grid.
+   * @throws IllegalArgumentException if cell size is not positive.
+   */
+  public ShapeGrid(int cellSize, List<IShape> shapes) throws IllegalArgumentException {
+    this(cellSize);
+    for (IShape each : shapes) {
+      this.add(each);
+    }
+  }
+
+  /**
+   * Adds the given shape on top of all shapes in the grid. Does nothing if the shape is already in
+   * the grid.
+   * @param shape (IShape) shape to be added.
+   */
+  public synchronized void add(IShape shape) {
+    if (this.entries.containsKey(shape)) {
+      return;
+    }
+    Entry entry = new Entry(shape, this.nextOrder++);
+    this.entries.put(shape, entry);
+    this.insert(entry);
+  }
+
+  /**
+   * Removes the given shape from the grid. Does nothing if the shape is not in the grid.
+   * @param shape (IShape) shape to be removed.
+   */
+  public synchronized void remove(IShape shape) {
+    Entry entry = this.entries.remove(shape);
+    if (entry != null) {
+      this.delete(entry);
+    }
+  }
+
+  /**
+   * Updates the grid after the given shape was moved or resized. Does nothing if the shape is not
+   * in the grid or its bounding box did not change.
+   * @param shape (IShape) shape that was moved or resized.
+   */
+  public synchronized void update(IShape shape) {
+    Entry entry = this.entries.get(shape);
+    if (entry == null) {
+      return;
+    }
+    BoundingBox bounds = shape.getBounds();
+    if (bounds.getX() == entry.bounds.getX() && bounds.getY() == entry.bounds.getY()
+            && bounds.getWidth() == entry.bounds.getWidth()
+            && bounds.getHeight() == entry.bounds.getHeight()) {
+      return;
+    }
+    this.delete(entry);
+    this.insert(entry);
+  }
+
+  /**
+   * Returns the number of shapes in the grid.
+   * @return (int) number of shapes in the grid.
+   */
+  public synchronized int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Returns the shapes whose bounding boxes intersect the given region, in the order they were
+   * added in (bottom to top).
+   * @param region (BoundingBox) the region to look in.
+   * @return (List</IShape>) shapes that intersect the region, bottom to top.
+   */
+  public synchronized List<IShape> query(BoundingBox region) {
+    List<Entry> found = new ArrayList<>();
+    int query = ++this.currentQuery;
+
+    // Visit each cell in the region, unless there are fewer non-empty cells than that
+    long minCol = this.cellOf(region.getX());
+    long minRow = this.cellOf(region.getY());
+    long maxCol = this.cellOf(region.getMaxX());
+    long maxRow = this.cellOf(region.getMaxY());
+    if ((maxCol - minCol + 1) * (maxRow - minRow + 1) <= this.cells.size()) {
+      for (long col = minCol; col <= maxCol; col++) {
+        for (long row = minRow; row <= maxRow; row++) {
+          List<Entry> cell = this.cells.get(key(col, row));
+          if (cell != null) {
+            this.collect(cell, region, query, found);
+          }
+        }
+      }
+    } else {
+      for (List<Entry> cell : this.cells.values()) {
+        this.collect(cell, region, query, found);
+      }
+    }
+    this.collect(this.oversized, region, query, found);
+
+    // Put shapes back in the order they were added in
+    found.sort((a, b) -> Long.compare(a.order, b.order));
+    List<IShape> shapes = new ArrayList<>(found.size());
+    for (Entry each : found) {
+      shapes.add(each.shape);
+    }
+    return shapes;
+  }
+
+  /**
+   * Returns the top-most shape whose bounding box contains the given point, or null if there is
+   * no such shape.
+   * @param x (int) x-coordinate of the point.
+   * @param y (int) y-coordinate of the point.
+   * @return (IShape) the top-most shape at the given point, or null if there is none.
+   */
+  public synchronized IShape topmostAt(int x, int y) {
+    Entry top = null;
+    List<Entry> cell = this.cells.get(key(this.cellOf(x), this.cellOf(y)));
+    if (cell != null) {
+      top = this.topmost(cell, x, y, top);
+    }
+    top = this.topmost(this.oversized, x, y, top);
+    return top == null ? null : top.shape;
+  }
+
+  /**
+   * A helper method that adds the entries from the given list that intersect the given region and
+   * were not found yet by the current query.
+   * @param list (List</Entry>) entries to look through.
+   * @param region (BoundingBox) the region to look in.
+   * @param query (int) number of the current query.
+   * @param found (List</Entry>) entries found so far.
+   */
+  private void collect(List<Entry> list, BoundingBox region, int query, List<Entry> found) {
+    for (Entry each : list) {
+      if (each.lastQuery != query && each.bounds.intersects(region)) {
+        each.lastQuery = query;
+        found.add(each);
+      }
+    }
+  }
+
+  /**
+   * A helper method that returns the top-most entry among the given one and the entries from the
+   * given list that contain the given point.
+   * @param list (List</Entry>) entries to look through.
+   * @param x (int) x-coordinate of the point.
+   * @param y (int) y-coordinate of the point.
+   * @param top (Entry) top-most entry found so far, or null if there is none.
+   * @return (Entry) top-most entry found, or null if there is none.
+   */
+  private Entry topmost(List<Entry> list, int x, int y, Entry top) {
+    for (Entry each : list) {
+      if ((top == null || each.order > top.order) && each.bounds.contains(x, y)) {
+        top = each;
+      }
+    }
+    return top;
+  }
+
+  /**
+   * A helper method that puts the given entry in the cells its shape currently covers.
+   * @param entry (Entry) the entry to be put in the grid.
+   */
+  private void insert(Entry entry) {
+    entry.bounds = entry.shape.getBounds();
+    entry.minCol = this.cellOf(entry.bounds.getX());
+    entry.minRow = this.cellOf(entry.bounds.getY());
+    entry.maxCol = this.cellOf(entry.bounds.getMaxX());
+    entry.maxRow = this.cellOf(entry.bounds.getMaxY());
+
+    // Very large shapes go in their own list instead of in many cells
+    if ((entry.maxCol - entry.minCol + 1) * (entry.maxRow - entry.minRow + 1)
+            > MAX_CELLS_PER_SHAPE) {
+      this.oversized.add(entry);
+      return;
+    }
+    for (long col = entry.minCol; col <= entry.maxCol; col++) {
+      for (long row = entry.minRow; row <= entry.maxRow; row++) {
+        this.cells.computeIfAbsent(key(col, row), k -> new ArrayList<>()).add(entry);
+      }
+    }
+  }
+
+  /**
+   * A helper method that takes the given entry out of all cells it was put in.
+   * @param entry (Entry) the entry to be taken out of the grid.
+   */
+  private void delete(Entry entry) {
+    if ((entry.maxCol - entry.minCol + 1) * (entry.maxRow - entry.minRow + 1)
+            > MAX_CELLS_PER_SHAPE) {
+      this.oversized.remove(entry);
+      return;
+    }
+    for (long col = entry.minCol; col <= entry.maxCol; col++) {
+      for (long row = entry.minRow; row <= entry.maxRow; row++) {
+        Long key = key(col, row);
+        List<Entry> cell = this.cells.get(key);
+        cell.remove(entry);
+        if (cell.isEmpty()) {
+          this.cells.remove(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * A helper method that returns the column or row of the cell that the given coordinate is in.
+   * @param coordinate (long) x- or y-coordinate.
+   * @return (long) column (for x) or row (for y) of the cell.
+   */
+  private long cellOf(long coordinate) {
+    return Math.floorDiv(coordinate, this.cellSize);
+  }
+
+  /**
+   * A helper method that combines the given column and row into one key for the map of cells.
+   * @param col (long) column of the cell.
+   * @param row (long) row of the cell.
+   * @return (long) key of the cell.
+   */
+  private static long key(long col, long row) {
+    return (col << 32) ^ (row & 0xFFFFFFFFL);
+  }
+
+  /**
+   * This class represents a shape in the grid. An Entry has the shape, the order it was added in,
+   * its bounding box when it was last put in the grid, and the cells it covers.
+   */
+  private static class Entry {
+    private final IShape shape;
+    private final long order;
+    private BoundingBox bounds;
+    private long minCol;
+    private long minRow;
+    private long maxCol;
+    private long maxRow;
+    private int lastQuery;
+
+    /**
+     * Constructs an Entry instantiated to the given shape and order.
+     * @param shape (IShape) the shape in the grid.
+     * @param order (long) the order the shape was added in.
+     */
+    private Entry(IShape shape, long order) {
+      this.shape = shape;
+      this.order = order;
+    }
+  }
+}
@@ -1,9 +1,18 @@
 package model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class represents a shapes photo album model. A ShapesPhotoAlbumModel has shapes that can
@@ -11,15 +20,47 @@ import java.util.Map;
  * the model state (shapes in their then-current locations and state) at a moment in time.
  */
 public class ShapesPhotoAlbumModel implements IPhotoAlbum {
-  private Map<String, IShape> currentShapes;
-  private Map<String, Snapshot> snapshots;
+  private static final int DEFAULT_KEYFRAME_INTERVAL = 32;
+  private static final int DEFAULT_CACHE_SIZE = 16;
+  private static final int DEFAULT_GRID_CELL_SIZE = 64;
+
+  private final int keyframeInterval;
+  private final int cacheSize;
+  private final SymbolTable symbols;
+  private Map<String, ReadOnlyShape> currentShapes;
+  private ReadOnlyShape[] shapesByID;
+  private Collection<IShape> shapesView;
+  private ShapeGrid shapeIndex;
+  private Set<String> addedShapes;
+  private boolean[] changedByID;
+  private int[] changedIDs;
+  private int changedCount;
+  private Set<String> removedShapes;
+  private SnapshotStore snapshots;
+  private SnapshotWriter snapshotWriter;
 
   /**
    * Constructs an empty ShapesPhotoAlbumModel.
    */
   public ShapesPhotoAlbumModel() {
-    this.currentShapes = new LinkedHashMap<>();
-    this.snapshots = new LinkedHashMap<>();
+    this(DEFAULT_KEYFRAME_INTERVAL, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Constructs an empty ShapesPhotoAlbumModel that saves all shapes of a snapshot only every
+   * keyframeInterval snapshots, and only the shapes that changed for the snapshots in between.
+   * Up to cacheSize snapshots are kept fully built in memory. A smaller keyframe interval makes
+   * looking up any snapshot faster, a larger one uses less memory.
+   * @param keyframeInterval (int) number of snapshots between two full keyframes (at least 1).
+   * @param cacheSize (int) number of rebuilt snapshots that are kept in memory (at least 1).
+   * @throws IllegalArgumentException if keyframe interval or cache size is less than 1.
+   */
+  public ShapesPhotoAlbumModel(int keyframeInterval, int cacheSize)
+          throws IllegalArgumentException {
+    this.keyframeInterval = keyframeInterval;
+    this.cacheSize = cacheSize;
+    this.symbols = new SymbolTable();
+    this.reset();
   }
 
   /**
@@ -71,76 +112,240 @@ public class ShapesPhotoAlbumModel implements IPhotoAlbum {
       return;
     }
     // Shape with name that already exists in album is not added
-    else if (this.currentShapes.containsKey(shape.getName())) {
+    int id = this.symbols.intern(shape.getName());
+    if (id < this.shapesByID.length && this.shapesByID[id] != null) {
       return;
     }
-    // Add shape to album if name is unique and shape is not null
+    // Add a copy of shape to album if name is unique and shape is not null - album owns its shapes
+    // so that every change goes through the album and can be tracked for snapshots
     else {
-      this.currentShapes.put(shape.getName(), shape);
+      ReadOnlyShape view = new ReadOnlyShape(shape.cloneDeep());
+      this.currentShapes.put(shape.getName(), view);
+      this.ensureCapacity(id);
+      this.shapesByID[id] = view;
+      this.shapeIndex.add(view);
+
+      // Keep added shapes in the order they were last added in
+      this.addedShapes.remove(shape.getName());
+      this.addedShapes.add(shape.getName());
     }
   }
 
+  @Override
+  public int getShapeID(String shapeName) throws IllegalArgumentException {
+    return this.symbols.intern(shapeName);
+  }
+
+  @Override
+  public int findShapeID(String shapeName) {
+    return this.symbols.lookup(shapeName);
+  }
+
   @Override
   public void removeShape(String shapeName) {
-    this.currentShapes.remove(shapeName);
+    this.removeShape(this.symbols.lookup(shapeName));
+  }
+
+  @Override
+  public void removeShape(int shapeID) {
+    ReadOnlyShape view = this.shapeWithID(shapeID);
+
+    // Changes made to a removed shape no longer matter for the next snapshot
+    if (view != null) {
+      String shapeName = view.getName();
+      this.currentShapes.remove(shapeName);
+      this.shapesByID[shapeID] = null;
+      this.shapeIndex.remove(view);
+      this.removedShapes.add(shapeName);
+      this.addedShapes.remove(shapeName);
+      this.changedByID[shapeID] = false;
+    }
   }
 
   @Override
   public void changeShapeColor(String shapeName, int r, int g, int b) {
-    IShape shape = this.currentShapes.get(shapeName);
+    this.changeShapeColor(this.symbols.lookup(shapeName), r, g, b);
+  }
+
+  @Override
+  public void changeShapeColor(int shapeID, int r, int g, int b) {
+    ReadOnlyShape shape = this.shapeWithID(shapeID);
 
     // Ensure album contains desired shape - if not, no changes made
     if (shape == null) {
       return;
     } else {
-      shape.setColor(r, g, b);
+      shape.getShape().setColor(r, g, b);
+      this.markChanged(shapeID);
     }
   }
 
   @Override
   public void moveShape(String shapeName, int x, int y) {
-    IShape shape = this.currentShapes.get(shapeName);
+    this.moveShape(this.symbols.lookup(shapeName), x, y);
+  }
+
+  @Override
+  public void moveShape(int shapeID, int x, int y) {
+    ReadOnlyShape shape = this.shapeWithID(shapeID);
 
     // Ensure album contains desired shape - if not, no changes made
     if (shape == null) {
       return;
     } else {
-      shape.setPoint(x, y);
+      shape.getShape().setPoint(x, y);
+      this.shapeIndex.update(shape);
+      this.markChanged(shapeID);
     }
   }
 
   @Override
   public void setShapeSize(String shapeName, int sizeX, int sizeY) {
-    IShape shape = this.currentShapes.get(shapeName);
+    this.setShapeSize(this.symbols.lookup(shapeName), sizeX, sizeY);
+  }
+
+  @Override
+  public void setShapeSize(int shapeID, int sizeX, int sizeY) {
+    ReadOnlyShape shape = this.shapeWithID(shapeID);
 
     // Ensure album contains desired shape - if not, no changes made
     if (shape == null) {
       return;
     } else {
-      shape.setSize(sizeX, sizeY);
+      shape.getShape().setSize(sizeX, sizeY);
+      this.shapeIndex.update(shape);
+      this.markChanged(shapeID);
+    }
+  }
+
+  /**
+   * A helper method that returns the shape in the album whose name has the given ID.
+   * @param shapeID (int) ID of the shape's name.
+   * @return (ReadOnlyShape) the shape, or null if no shape in the album has that name.
+   */
+  private ReadOnlyShape shapeWithID(int shapeID) {
+    if (shapeID < 0 || shapeID >= this.shapesByID.length) {
+      return null;
+    }
+    return this.shapesByID[shapeID];
+  }
+
+  /**
+   * A helper method that records that the shape whose name has the given ID changed since the
+   * last snapshot.
+   * @param shapeID (int) ID of the shape's name.
+   */
+  private void markChanged(int shapeID) {
+    if (!this.changedByID[shapeID]) {
+      this.changedByID[shapeID] = true;
+      if (this.changedCount == this.changedIDs.length) {
+        this.changedIDs = Arrays.copyOf(this.changedIDs, this.changedCount * 2);
+      }
+      this.changedIDs[this.changedCount++] = shapeID;
+    }
+  }
+
+  /**
+   * A helper method that makes the arrays indexed by name ID large enough for the given ID.
+   * @param shapeID (int) ID of a shape's name.
+   */
+  private void ensureCapacity(int shapeID) {
+    if (shapeID >= this.shapesByID.length) {
+      int length = Math.max(shapeID + 1, this.shapesByID.length * 2);
+      this.shapesByID = Arrays.copyOf(this.shapesByID, length);
+      this.changedByID = Arrays.copyOf(this.changedByID, length);
     }
   }
 
   @Override
   public void reset() {
     this.currentShapes = new LinkedHashMap<>();
-    this.snapshots = new LinkedHashMap<>();  }
+    this.shapesByID = new ReadOnlyShape[16];
+    this.shapesView = Collections.unmodifiableCollection(this.currentShapes.values());
+    this.shapeIndex = new ShapeGrid(DEFAULT_GRID_CELL_SIZE);
+    this.addedShapes = new LinkedHashSet<>();
+    this.changedByID = new boolean[16];
+    this.changedIDs = new int[16];
+    this.changedCount = 0;
+    this.removedShapes = new HashSet<>();
+    this.snapshots = new SnapshotStore(this.keyframeInterval, this.cacheSize);
+  }
 
   @Override
   public void takeSnapshot(String description) {
-    // Convert map of shapes to just a list of shapes
-    List<IShape> shapesList = new ArrayList<IShape>(this.currentShapes.values());
+    if (this.snapshotWriter != null) {
+      this.writeSnapshot(description);
+      return;
+    }
+
+    // Make read-only copies of only the shapes that changed since the last snapshot - shapes added
+    // since then go last, in the order they were added
+    List<IShape> changedList = new ArrayList<>();
+    for (int i = 0; i < this.changedCount; i++) {
+      int id = this.changedIDs[i];
+
+      // A shape removed after it changed is no longer marked, and one marked twice is copied once
+      if (this.changedByID[id]) {
+        this.changedByID[id] = false;
+        ReadOnlyShape shape = this.shapesByID[id];
+        if (!this.addedShapes.contains(shape.getName())) {
+          changedList.add(new ReadOnlyShape(shape.cloneDeep()));
+        }
+      }
+    }
+    this.changedCount = 0;
+    for (String name : this.addedShapes) {
+      changedList.add(new ReadOnlyShape(this.currentShapes.get(name).cloneDeep()));
+    }
+
+    // Save snapshot to album and start tracking changes for the next one
+    this.snapshots.add(description, this.removedShapes, changedList);
+    this.addedShapes = new LinkedHashSet<>();
+    this.removedShapes = new HashSet<>();
+  }
+
+  /**
+   * A helper method that hands a snapshot of the current shapes to the snapshot writer instead of
+   * saving it. The snapshot shares the read-only shapes of the album, since it is written before
+   * any of them can change.
+   * @param description (String) description associated to the snapshot.
+   * @throws UncheckedIOException if the snapshot could not be written.
+   */
+  private void writeSnapshot(String description) throws UncheckedIOException {
+    // Nothing needs to be tracked for the next snapshot, since nothing is saved
+    for (int i = 0; i < this.changedCount; i++) {
+      this.changedByID[this.changedIDs[i]] = false;
+    }
+    this.changedCount = 0;
+    this.addedShapes.clear();
+    this.removedShapes.clear();
+
+    // Create ID and timestamp based on current moment in time
+    LocalDateTime snapshotID = this.snapshots.nextID();
+    Snapshot snapshot = new Snapshot(snapshotID.toString(),
+            snapshotID.format(Snapshot.TIMESTAMP_FORMAT), description == null ? "" : description,
+            Collections.unmodifiableList(new ArrayList<>(this.currentShapes.values())));
+    try {
+      this.snapshotWriter.write(snapshot);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write the snapshot!", e);
+    }
+  }
 
-    // Create new snapshot and add to album
-    Snapshot newSnap = new Snapshot(description, shapesList);
-    this.snapshots.put(newSnap.getID(), newSnap);
+  @Override
+  public void setSnapshotWriter(SnapshotWriter writer) {
+    this.snapshotWriter = writer;
   }
 
   @Override
   public List<Snapshot> getSnapshots() {
-    // Convert map of snapshots to just a list of the snapshots taken
-    List<Snapshot> snapshotsList = new ArrayList<Snapshot>(this.snapshots.values());
-    return snapshotsList;
+    // Read-only view of the snapshots taken - each one is rebuilt when it is looked at
+    return this.snapshots.asList();
+  }
+
+  @Override
+  public ISnapshotStore getSnapshotStore() {
+    return this.snapshots;
   }
 
   @Override
@@ -156,27 +361,61 @@ public class ShapesPhotoAlbumModel implements IPhotoAlbum {
     return copyShapes;
   }
 
+  @Override
+  public Collection<IShape> getShapesView() {
+    return this.shapesView;
+  }
+
+  @Override
+  public List<IShape> getShapesInRegion(int x, int y, int width, int height)
+          throws IllegalArgumentException {
+    return this.shapeIndex.query(new BoundingBox(x, y, width, height));
+  }
+
+  @Override
+  public IShape getShapeAt(int x, int y) {
+    return this.shapeIndex.topmostAt(x, y);
+  }
+
   @Override
   public String getModelState() {
-    // Create String of all shapes in snapshot history
-    List<Snapshot> snapshotsList = this.getSnapshots();
-    String snapshotShapes = "";
-    for (Snapshot snap : snapshotsList) {
+    StringBuilder modelState = new StringBuilder();
+    try {
+      this.writeModelState(modelState);
+    } catch (IOException e) {
+      // Appending to a StringBuilder never fails
+      throw new IllegalStateException("Could not create the model state!", e);
+    }
+    return modelState.toString();
+  }
+
+  @Override
+  public void writeModelState(Appendable out) throws IOException {
+    // Write all shapes in snapshot history - each snapshot is rebuilt once and kept for the
+    // second listing below, which only costs references since unchanged shapes are shared
+    List<Snapshot> rebuilt = new ArrayList<>(this.snapshots.size());
+    for (Snapshot snap : this.getSnapshots()) {
+      rebuilt.add(snap);
       for (IShape shape : snap.getShapes()) {
-        snapshotShapes += shape.toString() + "\n";
+        out.append(shape.toString()).append('\n');
       }
-      snapshotShapes += "\n";
+      out.append('\n');
     }
 
-    // Create String of all saved snapshots
-    String snapshotHistory = "";
-    for (Snapshot each : this.getSnapshots()) {
-      snapshotHistory += each.toString() + "\n";
+    // Write IDs of all saved snapshots - read from the store so no snapshot has to be rebuilt
+    out.append("List of snapshots taken before reset: [");
+    for (int i = 0; i < this.snapshots.size(); i++) {
+      if (i > 0) {
+        out.append(", ");
+      }
+      out.append(this.snapshots.getID(i));
     }
+    out.append("]\n\nPrinting Snapshots\n");
 
-    // Combine snapshot shapes and snapshot history into one String to represent model states
-    String modelState = snapshotShapes + "List of snapshots taken before reset: "
-            + this.snapshots.keySet() + "\n\nPrinting Snapshots\n" + snapshotHistory;
-    return modelState;
+    // Write all saved snapshots
+    for (Snapshot each : rebuilt) {
+      each.appendTo(out);
+      out.append('\n');
+    }
   }
 }
@@ -1,7 +1,9 @@
 package model;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,6 +12,9 @@ import java.util.List;
  * and list of shapes. A snapshot is a "freeze frame" of shapes in a shapes photo album.
  */
 public class Snapshot {
+  static final DateTimeFormatter TIMESTAMP_FORMAT =
+          DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
   private final String ID;
   private final String timestamp;
   private String description;
@@ -35,12 +40,56 @@ public class Snapshot {
 
     // Create ID and timestamp based on current moment in time
     LocalDateTime snapshotID = LocalDateTime.now();
-    DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
 
     this.shapes = this.copyShapes(currentShapes); // deep copy of shapes
     this.description = description;
     this.ID = snapshotID.toString();
-    this.timestamp = snapshotID.format(format);
+    this.timestamp = snapshotID.format(TIMESTAMP_FORMAT);
+  }
+
+  /**
+   * Constructs a Snapshot object instantiated to the given ID and description, and makes a deep
+   * copy of the given list of shapes. Used to bring back a snapshot that was taken before and
+   * saved elsewhere, so the timestamp is based on the ID instead of the current moment in time.
+   * If description is null, converts it to an empty String.
+   * @param ID (String) the ID of the snapshot, as given by getID() when it was taken.
+   * @param description (String) description associated to the Snapshot.
+   * @param currentShapes (List</IShape>) shapes to be saved in Snapshot.
+   * @throws IllegalArgumentException if the ID is not one given by getID(), or if list of shapes
+   *                                  is null.
+   */
+  public Snapshot(String ID, String description, List<IShape> currentShapes)
+          throws IllegalArgumentException {
+    if (currentShapes == null) {
+      throw new IllegalArgumentException("List of shapes cannot be null!");
+    }
+    LocalDateTime snapshotID;
+    try {
+      snapshotID = LocalDateTime.parse(ID);
+    } catch (DateTimeParseException | NullPointerException e) {
+      throw new IllegalArgumentException("Invalid snapshot ID!");
+    }
+
+    this.shapes = this.copyShapes(currentShapes); // deep copy of shapes
+    this.description = description == null ? "" : description;
+    this.ID = ID;
+    this.timestamp = snapshotID.format(TIMESTAMP_FORMAT);
+  }
+
+  /**
+   * Constructs a Snapshot object instantiated to the given ID, timestamp, description, and list of
+   * shapes. Used by the snapshot history of a photo album to rebuild snapshots it has taken before,
+   * so the given shapes are kept as they are instead of being deep copied. They must be read-only.
+   * @param ID (String) the ID of the snapshot.
+   * @param timestamp (String) the timestamp of the snapshot.
+   * @param description (String) description associated to the Snapshot (non-null).
+   * @param shapes (List</IShape>) read-only shapes saved in the Snapshot (non-null).
+   */
+  Snapshot(String ID, String timestamp, String description, List<IShape> shapes) {
+    this.ID = ID;
+    this.timestamp = timestamp;
+    this.description = description;
+    this.shapes = shapes;
   }
 
   /**
@@ -74,7 +123,10 @@ public class Snapshot {
   }
 
   /**
-   * Returns the shapes saved to this snapshot.
+   * Returns the shapes saved to this snapshot. Snapshots taken by a photo album share the shapes
+   * that did not change between them, so their list and shapes are read-only: changing them
+   * throws an UnsupportedOperationException. Use cloneDeep() on a shape for a copy that can be
+   * changed.
    * @return (List</IShape>) list of shapes in their then-current locations and state at the time
    *                         of snapshot.
    */
@@ -89,12 +141,27 @@ public class Snapshot {
    */
   @Override
   public String toString() {
-    // Create one String containing all the shapes' information
-    String shapeInformation = "";
+    StringBuilder snapshot = new StringBuilder();
+    try {
+      this.appendTo(snapshot);
+    } catch (IOException e) {
+      // Appending to a StringBuilder never fails
+      throw new IllegalStateException("Could not create the snapshot String!", e);
+    }
+    return snapshot.toString();
+  }
+
+  /**
+   * Writes the same representation of the Snapshot as toString() to the given output, one shape
+   * at a time, without building the whole String in memory first.
+   * @param out (Appendable) where the snapshot information is written to.
+   * @throws IOException if the snapshot information could not be written to the output.
+   */
+  public void appendTo(Appendable out) throws IOException {
+    out.append("Snapshot ID: ").append(this.ID).append("\nTimestamp: ").append(this.timestamp)
+            .append("\nDescription: ").append(this.description).append("\nShape Information:\n");
     for (IShape each : this.shapes) {
-      shapeInformation += each.toString() + "\n";
+      out.append(each.toString()).append('\n');
     }
-    return "Snapshot ID: " + this.ID + "\nTimestamp: " + this.timestamp + "\nDescription: "
-            + this.description + "\nShape Information:\n" + shapeInformation;
   }
 }
@@ -0,0 +1,247 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents the snapshot history of a shapes photo album. Instead of keeping every
+ * shape of every snapshot, a SnapshotStore keeps a full list of shapes (a keyframe) every K
+ * snapshots and, for the snapshots in between, only the shapes that were added, changed, or removed
+ * since the snapshot before. Snapshots are rebuilt on demand from the nearest keyframe, and the
+ * most recently rebuilt snapshots are cached. Snapshots can be looked up by position or by ID in
+ * constant time.
+ */
+class SnapshotStore implements ISnapshotStore {
+  private final int keyframeInterval;
+  private final int cacheSize;
+  private final List<Entry> entries;
+  private final Map<String, Integer> indexByID;
+  private final Map<String, IShape> latestShapes;
+  private final Map<Integer, Snapshot> cache;
+  private LocalDateTime lastID;
+
+  /**
+   * Constructs an empty SnapshotStore instantiated to the given keyframe interval and cache size.
+   * @param keyframeInterval (int) number of snapshots between two full keyframes (at least 1).
+   * @param cacheSize (int) number of rebuilt snapshots that are kept in memory (at least 1).
+   * @throws IllegalArgumentException if keyframe interval or cache size is less than 1.
+   */
+  SnapshotStore(int keyframeInterval, int cacheSize) throws IllegalArgumentException {
+    if (keyframeInterval < 1 || cacheSize < 1) {
+      throw new IllegalArgumentException("Keyframe interval and cache size must be at least 1!");
+    }
+    this.keyframeInterval = keyframeInterval;
+    this.cacheSize = cacheSize;
+    this.entries = new ArrayList<>();
+    this.indexByID = new HashMap<>();
+    this.latestShapes = new LinkedHashMap<>();
+    this.lastID = LocalDateTime.MIN;
+
+    // Access ordered map that drops the least recently used snapshot once the cache is full
+    this.cache = new LinkedHashMap<Integer, Snapshot>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, Snapshot> eldest) {
+        return this.size() > SnapshotStore.this.cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Saves a new snapshot to the end of the history. The snapshot is described by what changed
+   * since the snapshot before it: shapes are removed by name first, then the given shapes are put
+   * in. A shape that is put in replaces the one with the same name and keeps its place, or goes to
+   * the end if there is no such shape.
+   * @param description (String) description associated to the snapshot.
+   * @param removed (Collection</String>) names of the shapes removed since the last snapshot.
+   * @param changed (List</IShape>) read-only copies of the shapes that were added or changed
+   *                since the last snapshot, in the order they must be put in.
+   */
+  synchronized void add(String description, Collection<String> removed, List<IShape> changed) {
+    // When null passed in as description, make it blank
+    if (description == null) {
+      description = "";
+    }
+
+    // Bring the latest state of the album up to date
+    for (String name : removed) {
+      this.latestShapes.remove(name);
+    }
+    for (IShape shape : changed) {
+      this.latestShapes.put(shape.getName(), shape);
+    }
+
+    // Create ID and timestamp based on current moment in time
+    LocalDateTime snapshotID = this.nextID();
+    Entry entry = new Entry(snapshotID.toString(), snapshotID.format(Snapshot.TIMESTAMP_FORMAT),
+            description);
+
+    // Keep every shape for keyframes, only the changes for everything else
+    if (this.entries.size() % this.keyframeInterval == 0) {
+      entry.keyframe = Collections.unmodifiableList(new ArrayList<>(this.latestShapes.values()));
+    } else {
+      entry.removed = removed.toArray(new String[0]);
+      entry.changed = changed.toArray(new IShape[0]);
+    }
+    this.indexByID.put(entry.id, this.entries.size());
+    this.entries.add(entry);
+  }
+
+  /**
+   * Returns the ID of a new snapshot, based on the current moment in time. Snapshots taken within
+   * the same tick of the clock would get the same ID, so an ID that is not after the last one
+   * given out is moved one nanosecond past it instead.
+   * @return (LocalDateTime) the ID of the new snapshot, after every ID given out before.
+   */
+  synchronized LocalDateTime nextID() {
+    LocalDateTime now = LocalDateTime.now();
+    this.lastID = now.isAfter(this.lastID) ? now : this.lastID.plusNanos(1);
+    return this.lastID;
+  }
+
+  /**
+   * Returns the snapshot at the given position in the history, rebuilding it if it is not cached.
+   * @param index (int) position of the snapshot, starting from 0.
+   * @return (Snapshot) the snapshot at the given position.
+   * @throws IndexOutOfBoundsException if there is no snapshot at the given position.
+   */
+  @Override
+  public synchronized Snapshot get(int index) throws IndexOutOfBoundsException {
+    this.checkIndex(index);
+    Snapshot snapshot = this.cache.get(index);
+    if (snapshot == null) {
+      snapshot = this.rebuild(index);
+      this.cache.put(index, snapshot);
+    }
+    return snapshot;
+  }
+
+  @Override
+  public synchronized Snapshot get(String id) {
+    Integer index = this.indexByID.get(id);
+    return index == null ? null : this.get(index);
+  }
+
+  @Override
+  public synchronized String getID(int index) throws IndexOutOfBoundsException {
+    this.checkIndex(index);
+    return this.entries.get(index).id;
+  }
+
+  @Override
+  public synchronized int indexOf(String id) {
+    Integer index = this.indexByID.get(id);
+    return index == null ? -1 : index;
+  }
+
+  @Override
+  public synchronized int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Returns a read-only list view of the snapshots in the history. The view does not copy anything;
+   * each snapshot is looked up (and rebuilt if needed) when it is asked for.
+   * @return (List</Snapshot>) read-only view of all snapshots taken.
+   */
+  @Override
+  public List<Snapshot> asList() {
+    return new AbstractList<Snapshot>() {
+      @Override
+      public Snapshot get(int index) {
+        return SnapshotStore.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return SnapshotStore.this.size();
+      }
+    };
+  }
+
+  /**
+   * A helper method that checks there is a snapshot at the given position.
+   * @param index (int) position of the snapshot.
+   * @throws IndexOutOfBoundsException if there is no snapshot at the given position.
+   */
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.entries.size()) {
+      throw new IndexOutOfBoundsException("No snapshot at index " + index + "!");
+    }
+  }
+
+  /**
+   * A helper method that rebuilds the snapshot at the given position. Starts from the closest
+   * cached snapshot or keyframe before it and applies the changes saved after that.
+   * @param index (int) position of the snapshot to rebuild.
+   * @return (Snapshot) the rebuilt snapshot.
+   */
+  private Snapshot rebuild(int index) {
+    Entry entry = this.entries.get(index);
+    if (entry.keyframe != null) {
+      return new Snapshot(entry.id, entry.timestamp, entry.description, entry.keyframe);
+    }
+
+    // Find the closest starting point - a cached snapshot is never further than the keyframe
+    int keyframeIndex = index - index % this.keyframeInterval;
+    int start = keyframeIndex;
+    List<IShape> startShapes = this.entries.get(keyframeIndex).keyframe;
+    for (int i = index - 1; i > keyframeIndex; i--) {
+      Snapshot cached = this.cache.get(i);
+      if (cached != null) {
+        start = i;
+        startShapes = cached.getShapes();
+        break;
+      }
+    }
+
+    // Apply every change made after the starting point, in order
+    Map<String, IShape> shapes = new LinkedHashMap<>();
+    for (IShape each : startShapes) {
+      shapes.put(each.getName(), each);
+    }
+    for (int i = start + 1; i <= index; i++) {
+      Entry delta = this.entries.get(i);
+      for (String name : delta.removed) {
+        shapes.remove(name);
+      }
+      for (IShape shape : delta.changed) {
+        shapes.put(shape.getName(), shape);
+      }
+    }
+    return new Snapshot(entry.id, entry.timestamp, entry.description,
+            Collections.unmodifiableList(new ArrayList<>(shapes.values())));
+  }
+
+  /**
+   * This class represents one snapshot in the history. An Entry has the snapshot's ID, timestamp,
+   * and description, and either all of its shapes (keyframe) or only what changed since the
+   * snapshot before it.
+   */
+  private static class Entry {
+    private final String id;
+    private final String timestamp;
+    private final String description;
+    private List<IShape> keyframe;
+    private String[] removed;
+    private IShape[] changed;
+
+    /**
+     * Constructs an Entry instantiated to the given snapshot ID, timestamp, and description.
+     * @param id (String) the ID of the snapshot.
+     * @param timestamp (String) the timestamp of the snapshot.
+     * @param description (String) description associated to the snapshot.
+     */
+    private Entry(String id, String timestamp, String description) {
+      this.id = id;
+      this.timestamp = timestamp;
+      this.description = description;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * This interface represents a receiver of snapshots that writes each one out as soon as it is
+ * taken, so that a photo album does not have to keep its snapshots.
+ */
+public interface SnapshotWriter {
+
+  /**
+   * Writes out the given snapshot. The snapshot is not kept by anyone else, so it is released
+   * once it has been written.
+   * @param snapshot (Snapshot) the snapshot that was just taken.
+   * @throws IOException if the snapshot could not be written.
+   */
+  void write(Snapshot snapshot) throws IOException;
+}
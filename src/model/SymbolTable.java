@@ -0,0 +1,72 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents a table of shape names. A SymbolTable gives each distinct name a dense int
+ * ID (0, 1, 2, and so on, in the order names are first seen), so that code handling many commands
+ * on the same shapes can look a name up once and then use the ID instead of the name. IDs never
+ * change once given out.
+ */
+public class SymbolTable {
+  private final Map<String, Integer> ids;
+  private final List<String> names;
+
+  /**
+   * Constructs an empty SymbolTable.
+   */
+  public SymbolTable() {
+    this.ids = new HashMap<>();
+    this.names = new ArrayList<>();
+  }
+
+  /**
+   * Returns the ID of the given name, giving it the next ID if it has none yet.
+   * @param name (String) the name (non-null).
+   * @return (int) ID of the name.
+   * @throws IllegalArgumentException if the name is null.
+   */
+  public int intern(String name) throws IllegalArgumentException {
+    if (name == null) {
+      throw new IllegalArgumentException("Name cannot be null!");
+    }
+    Integer id = this.ids.get(name);
+    if (id == null) {
+      id = this.names.size();
+      this.ids.put(name, id);
+      this.names.add(name);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the ID of the given name, or -1 if it has none.
+   * @param name (String) the name.
+   * @return (int) ID of the name, or -1 if the name was never interned.
+   */
+  public int lookup(String name) {
+    Integer id = this.ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the name with the given ID.
+   * @param id (int) the ID.
+   * @return (String) the name with the given ID.
+   * @throws IndexOutOfBoundsException if no name has the given ID.
+   */
+  public String nameOf(int id) throws IndexOutOfBoundsException {
+    return this.names.get(id);
+  }
+
+  /**
+   * Returns the number of names in the table, which is also the next ID to be given out.
+   * @return (int) number of names in the table.
+   */
+  public int size() {
+    return this.names.size();
+  }
+}
@@ -0,0 +1,59 @@
+package util;
+
+import model.IPhotoAlbum;
+import model.IShape;
+
+/**
+ * This class represents a receiver of parsed commands that applies them to a photo album. An
+ * AlbumCommandSink has the photo album to be updated, and hands out the album's own shape IDs, so
+ * commands reach the album by ID without it hashing the name again. Only shape commands give a
+ * name a new ID; other commands on a name the album does not know change nothing.
+ */
+final class AlbumCommandSink implements CommandSink {
+  private final IPhotoAlbum model;
+
+  /**
+   * Constructs an AlbumCommandSink instantiated to the given photo album.
+   * @param model (IPhotoAlbum) the photo album to be updated.
+   */
+  AlbumCommandSink(IPhotoAlbum model) {
+    this.model = model;
+  }
+
+  @Override
+  public int shapeID(String name, boolean adding) {
+    return adding ? this.model.getShapeID(name) : this.model.findShapeID(name);
+  }
+
+  @Override
+  public void shape(String type, int id, String name, int x, int y, int sizeX, int sizeY, int r,
+                    int g, int b) {
+    IShape shape = this.model.createShape(type, name, x, y, sizeX, sizeY, r, g, b);
+    this.model.addShape(shape);
+  }
+
+  @Override
+  public void move(int id, String name, int x, int y) {
+    this.model.moveShape(id, x, y);
+  }
+
+  @Override
+  public void color(int id, String name, int r, int g, int b) {
+    this.model.changeShapeColor(id, r, g, b);
+  }
+
+  @Override
+  public void resize(int id, String name, int sizeX, int sizeY) {
+    this.model.setShapeSize(id, sizeX, sizeY);
+  }
+
+  @Override
+  public void remove(int id, String name) {
+    this.model.removeShape(id);
+  }
+
+  @Override
+  public void snapshot(String description) {
+    this.model.takeSnapshot(description);
+  }
+}
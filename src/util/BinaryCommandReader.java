@@ -0,0 +1,208 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents a reader of compiled command files. A BinaryCommandReader reads commands
+ * in the binary format written by BinaryCommandWriter and passes them on without any text to
+ * tokenize or numbers to parse.
+ */
+final class BinaryCommandReader {
+  private final InputStream in;
+  private final List<String> names;
+  private final byte[] buffer;
+  private int nameID;
+  private int position;
+  private int limit;
+  private byte[] scratch;
+
+  /**
+   * Constructs a BinaryCommandReader instantiated to the given stream of a compiled command file.
+   * @param in (InputStream) the stream to read compiled commands from.
+   */
+  BinaryCommandReader(InputStream in) {
+    this.in = in;
+    this.names = new ArrayList<>();
+    this.buffer = new byte[64 * 1024];
+    this.scratch = new byte[256];
+  }
+
+  /**
+   * Checks whether the stream starts like a compiled command file of the current version. Reads
+   * the start of the stream.
+   * @return (boolean) true if the stream has the right start, false otherwise.
+   * @throws IOException if the stream cannot be read.
+   */
+  boolean readHeader() throws IOException {
+    for (byte each : BinaryCommandWriter.MAGIC) {
+      if (!this.fill(1) || this.buffer[this.position++] != each) {
+        return false;
+      }
+    }
+    return this.fill(1) && this.buffer[this.position++] == BinaryCommandWriter.VERSION;
+  }
+
+  /**
+   * Reads every command after the start of the stream and passes them to the given receiver, in
+   * order. Shape names are mapped to IDs by their place in the file's table of names, so each
+   * distinct name is looked up by the receiver only once.
+   * @param sink (CommandSink) the receiver of the commands.
+   * @throws IOException if the stream cannot be read, or is not a complete compiled file.
+   */
+  void replay(CommandSink sink) throws IOException {
+    ShapeIDMap ids = new ShapeIDMap(sink);
+    while (true) {
+      int command = this.readByte();
+      switch (command) {
+        case CommandTokenizer.SHAPE:
+          String type = this.readName();
+          String name = this.readName();
+          int id = ids.shapeID(this.nameID, name, true);
+          sink.shape(type, id, name, this.readInt(), this.readInt(), this.readInt(),
+                  this.readInt(), this.readInt(), this.readInt(), this.readInt());
+          break;
+
+        case CommandTokenizer.MOVE:
+          name = this.readName();
+          id = ids.shapeID(this.nameID, name, false);
+          sink.move(id, name, this.readInt(), this.readInt());
+          break;
+
+        case CommandTokenizer.COLOR:
+          name = this.readName();
+          id = ids.shapeID(this.nameID, name, false);
+          sink.color(id, name, this.readInt(), this.readInt(), this.readInt());
+          break;
+
+        case CommandTokenizer.RESIZE:
+          name = this.readName();
+          id = ids.shapeID(this.nameID, name, false);
+          sink.resize(id, name, this.readInt(), this.readInt());
+          break;
+
+        case CommandTokenizer.REMOVE:
+          name = this.readName();
+          sink.remove(ids.shapeID(this.nameID, name, false), name);
+          break;
+
+        case CommandTokenizer.SNAPSHOT:
+          sink.snapshot(this.readString());
+          break;
+
+        case BinaryCommandWriter.END:
+          return;
+
+        default:
+          throw new IOException("Compiled command file is corrupt!");
+      }
+    }
+  }
+
+  /**
+   * A helper method that reads a reference to a name, adding the name to the table if it is new.
+   * The place of the name in the table is kept as the ID of the name read last.
+   * @return (String) the name.
+   * @throws IOException if the stream cannot be read, or refers to a name it never defined.
+   */
+  private String readName() throws IOException {
+    int reference = this.readVarint();
+    if (reference == 0) {
+      String name = this.readString();
+      this.nameID = this.names.size();
+      this.names.add(name);
+      return name;
+    }
+    if (reference < 0 || reference > this.names.size()) {
+      throw new IOException("Compiled command file is corrupt!");
+    }
+    this.nameID = reference - 1;
+    return this.names.get(this.nameID);
+  }
+
+  /**
+   * A helper method that reads a String written as its length in bytes and its UTF-8 bytes.
+   * @return (String) the String.
+   * @throws IOException if the stream cannot be read.
+   */
+  private String readString() throws IOException {
+    int length = this.readVarint();
+    if (length < 0) {
+      throw new IOException("Compiled command file is corrupt!");
+    }
+    if (length > this.scratch.length) {
+      this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+    }
+    for (int i = 0; i < length; i++) {
+      this.scratch[i] = (byte) this.readByte();
+    }
+    return new String(this.scratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A helper method that reads an int written as a zigzag variable-length int.
+   * @return (int) the int.
+   * @throws IOException if the stream cannot be read.
+   */
+  private int readInt() throws IOException {
+    int value = this.readVarint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * A helper method that reads an unsigned variable-length int, 7 bits per byte, lowest bits
+   * first.
+   * @return (int) the int.
+   * @throws IOException if the stream cannot be read, or the int is too long.
+   */
+  private int readVarint() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = this.readByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Compiled command file is corrupt!");
+  }
+
+  /**
+   * A helper method that reads one byte.
+   * @return (int) the byte, between 0 and 255.
+   * @throws IOException if the stream cannot be read, or has ended.
+   */
+  private int readByte() throws IOException {
+    if (!this.fill(1)) {
+      throw new IOException("Compiled command file is cut short!");
+    }
+    return this.buffer[this.position++] & 0xFF;
+  }
+
+  /**
+   * A helper method that makes sure the buffer has at least the given number of unread bytes,
+   * reading more of the stream if needed.
+   * @param needed (int) number of bytes needed.
+   * @return (boolean) true if enough bytes are available, false if the stream ended first.
+   * @throws IOException if the stream cannot be read.
+   */
+  private boolean fill(int needed) throws IOException {
+    if (this.limit - this.position >= needed) {
+      return true;
+    }
+    System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+    this.limit -= this.position;
+    this.position = 0;
+    while (this.limit < needed) {
+      int read = this.in.read(this.buffer, this.limit, this.buffer.length - this.limit);
+      if (read < 0) {
+        return false;
+      }
+      this.limit += read;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,192 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class represents a writer of compiled command files. A BinaryCommandWriter receives parsed
+ * commands and writes them to a stream in the compact binary format read by BinaryCommandReader.
+ *
+ * <p>The format starts with the bytes "SPAB" and a version byte. Each command is then one byte
+ * for the command, followed by its values: names as references into a table of names, numbers as
+ * variable-length (zigzag) ints, and descriptions as a length and UTF-8 bytes. A reference of 0
+ * means a new name follows and is added to the table; any other reference n is the (n-1)th name
+ * in the table. The file ends with a 0 byte, so a file cut short is noticed.
+ */
+final class BinaryCommandWriter implements CommandSink {
+  static final byte[] MAGIC = {'S', 'P', 'A', 'B'};
+  static final int VERSION = 1;
+  static final int END = 0;
+
+  private final OutputStream out;
+  private final Map<String, Integer> names;
+  private final byte[] buffer;
+  private int size;
+
+  /**
+   * Constructs a BinaryCommandWriter instantiated to the given stream, and writes the start of the
+   * format to it.
+   * @param out (OutputStream) the stream to write the compiled commands to.
+   * @throws IOException if the stream cannot be written to.
+   */
+  BinaryCommandWriter(OutputStream out) throws IOException {
+    this.out = out;
+    this.names = new HashMap<>();
+    this.buffer = new byte[64 * 1024];
+    out.write(MAGIC);
+    out.write(VERSION);
+  }
+
+  @Override
+  public int shapeID(String name, boolean adding) {
+    // Names are written as they are, so the writer gives them no IDs
+    return -1;
+  }
+
+  @Override
+  public void shape(String type, int id, String name, int x, int y, int sizeX, int sizeY, int r,
+                    int g, int b) {
+    this.writeByte(CommandTokenizer.SHAPE);
+    this.writeName(type);
+    this.writeName(name);
+    this.writeInt(x);
+    this.writeInt(y);
+    this.writeInt(sizeX);
+    this.writeInt(sizeY);
+    this.writeInt(r);
+    this.writeInt(g);
+    this.writeInt(b);
+  }
+
+  @Override
+  public void move(int id, String name, int x, int y) {
+    this.writeByte(CommandTokenizer.MOVE);
+    this.writeName(name);
+    this.writeInt(x);
+    this.writeInt(y);
+  }
+
+  @Override
+  public void color(int id, String name, int r, int g, int b) {
+    this.writeByte(CommandTokenizer.COLOR);
+    this.writeName(name);
+    this.writeInt(r);
+    this.writeInt(g);
+    this.writeInt(b);
+  }
+
+  @Override
+  public void resize(int id, String name, int sizeX, int sizeY) {
+    this.writeByte(CommandTokenizer.RESIZE);
+    this.writeName(name);
+    this.writeInt(sizeX);
+    this.writeInt(sizeY);
+  }
+
+  @Override
+  public void remove(int id, String name) {
+    this.writeByte(CommandTokenizer.REMOVE);
+    this.writeName(name);
+  }
+
+  @Override
+  public void snapshot(String description) {
+    this.writeByte(CommandTokenizer.SNAPSHOT);
+    this.writeString(description);
+  }
+
+  /**
+   * Writes the end of the format and everything still buffered to the stream. Nothing should be
+   * written after this.
+   * @throws IOException if the stream cannot be written to.
+   */
+  void finish() throws IOException {
+    try {
+      this.writeByte(END);
+      this.flush();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    this.out.flush();
+  }
+
+  /**
+   * A helper method that writes a reference to the given name, adding it to the table of names
+   * the first time it is written.
+   * @param name (String) the name.
+   */
+  private void writeName(String name) {
+    Integer reference = this.names.get(name);
+    if (reference != null) {
+      this.writeVarint(reference);
+      return;
+    }
+    this.writeVarint(0);
+    this.writeString(name);
+    this.names.put(name, this.names.size() + 1);
+  }
+
+  /**
+   * A helper method that writes the given String as its length in bytes followed by its UTF-8
+   * bytes.
+   * @param s (String) the String.
+   */
+  private void writeString(String s) {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    this.writeVarint(bytes.length);
+    for (byte each : bytes) {
+      this.writeByte(each);
+    }
+  }
+
+  /**
+   * A helper method that writes the given int so that small positive and negative values take
+   * fewer bytes (zigzag, then variable length).
+   * @param value (int) the int.
+   */
+  private void writeInt(int value) {
+    this.writeVarint((value << 1) ^ (value >> 31));
+  }
+
+  /**
+   * A helper method that writes the given int as unsigned, 7 bits per byte, lowest bits first.
+   * The top bit of each byte says whether more bytes follow.
+   * @param value (int) the int, read as unsigned.
+   */
+  private void writeVarint(int value) {
+    while ((value & ~0x7F) != 0) {
+      this.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    this.writeByte(value);
+  }
+
+  /**
+   * A helper method that writes one byte, passing the buffer on to the stream when it is full.
+   * @param b (int) the byte.
+   * @throws UncheckedIOException if the stream cannot be written to.
+   */
+  private void writeByte(int b) throws UncheckedIOException {
+    if (this.size == this.buffer.length) {
+      this.flush();
+    }
+    this.buffer[this.size++] = (byte) b;
+  }
+
+  /**
+   * A helper method that passes the buffer on to the stream.
+   * @throws UncheckedIOException if the stream cannot be written to.
+   */
+  private void flush() throws UncheckedIOException {
+    try {
+      this.out.write(this.buffer, 0, this.size);
+      this.size = 0;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a batch of parsed commands from a command file, in the order they appear
+ * in the file. A CommandBatch keeps commands as compact records (one byte per command, with their
+ * numbers and Strings in shared arrays) so that parts of a file can be parsed ahead of time and
+ * applied to a photo album later. Shape names are kept along with the ID the tokenizer gave them,
+ * so passing the batch on can map them to shape IDs without hashing the name. A line that could
+ * not be parsed is kept as an error in its place, and is thrown when the batch gets to it while
+ * being applied.
+ */
+final class CommandBatch {
+  private static final byte ERROR = -1;
+
+  private byte[] commands;
+  private int commandCount;
+  private int[] ints;
+  private int intCount;
+  private Object[] objects;
+  private int objectCount;
+
+  /**
+   * Constructs an empty CommandBatch.
+   */
+  CommandBatch() {
+    this.commands = new byte[256];
+    this.ints = new int[512];
+    this.objects = new Object[256];
+  }
+
+  /**
+   * Returns the number of commands in the batch, errors included.
+   * @return (int) number of commands in the batch.
+   */
+  int size() {
+    return this.commandCount;
+  }
+
+  /**
+   * Adds the command on the current line of the given tokenizer to the end of the batch. Lines
+   * that are not commands are skipped, and lines that cannot be parsed are added as errors.
+   * @param tokens (CommandTokenizer) the tokenizer positioned at the line to be added.
+   */
+  void add(CommandTokenizer tokens) {
+    int command = tokens.command();
+    try {
+      switch (command) {
+        case CommandTokenizer.SHAPE:
+          String type = tokens.name(2);
+          String name = tokens.name(1);
+          int nameID = tokens.nameID(1);
+          int x = tokens.intValue(3);
+          int y = tokens.intValue(4);
+          int sizeX = tokens.intValue(5);
+          int sizeY = tokens.intValue(6);
+          int r = tokens.intValue(7);
+          int g = tokens.intValue(8);
+          int b = tokens.intValue(9);
+          this.addCommand(command);
+          this.addObject(type);
+          this.addObject(name);
+          this.addInt(nameID);
+          this.addInt(x);
+          this.addInt(y);
+          this.addInt(sizeX);
+          this.addInt(sizeY);
+          this.addInt(r);
+          this.addInt(g);
+          this.addInt(b);
+          break;
+
+        case CommandTokenizer.MOVE:
+        case CommandTokenizer.RESIZE:
+          name = tokens.name(1);
+          nameID = tokens.nameID(1);
+          x = tokens.intValue(2);
+          y = tokens.intValue(3);
+          this.addCommand(command);
+          this.addObject(name);
+          this.addInt(nameID);
+          this.addInt(x);
+          this.addInt(y);
+          break;
+
+        case CommandTokenizer.COLOR:
+          name = tokens.name(1);
+          nameID = tokens.nameID(1);
+          r = tokens.intValue(2);
+          g = tokens.intValue(3);
+          b = tokens.intValue(4);
+          this.addCommand(command);
+          this.addObject(name);
+          this.addInt(nameID);
+          this.addInt(r);
+          this.addInt(g);
+          this.addInt(b);
+          break;
+
+        case CommandTokenizer.REMOVE:
+          name = tokens.name(1);
+          nameID = tokens.nameID(1);
+          this.addCommand(command);
+          this.addObject(name);
+          this.addInt(nameID);
+          break;
+
+        case CommandTokenizer.SNAPSHOT:
+          this.addCommand(command);
+          this.addObject(tokens.rest(1));
+          break;
+
+        default:
+          break;
+      }
+    } catch (RuntimeException e) {
+      this.addCommand(ERROR);
+      this.addObject(e);
+    }
+  }
+
+  /**
+   * Passes every command in the batch to the given receiver, in order.
+   * @param sink (CommandSink) the receiver of the commands.
+   * @throws RuntimeException the error kept for a line that could not be parsed, once the
+   *                          commands before it were passed on.
+   */
+  void replay(CommandSink sink) throws RuntimeException {
+    this.replay(sink, new ShapeIDMap(sink));
+  }
+
+  /**
+   * Passes every command in the batch to the given receiver, in order, mapping shape names to IDs
+   * with the given map. Batches filled by the same tokenizer should share one map, since the map
+   * is keyed by the IDs that tokenizer gave the names.
+   * @param sink (CommandSink) the receiver of the commands.
+   * @param ids (ShapeIDMap) the shape IDs the receiver gave the tokenizer's names.
+   * @throws RuntimeException the error kept for a line that could not be parsed, once the
+   *                          commands before it were passed on.
+   */
+  void replay(CommandSink sink, ShapeIDMap ids) throws RuntimeException {
+    int i = 0;
+    int o = 0;
+    for (int c = 0; c < this.commandCount; c++) {
+      byte command = this.commands[c];
+      if (command == ERROR) {
+        throw (RuntimeException) this.objects[o];
+      }
+      if (command == CommandTokenizer.SNAPSHOT) {
+        sink.snapshot((String) this.objects[o++]);
+        continue;
+      }
+      if (command == CommandTokenizer.SHAPE) {
+        String type = (String) this.objects[o++];
+        String name = (String) this.objects[o++];
+        int id = ids.shapeID(this.ints[i], name, true);
+        sink.shape(type, id, name, this.ints[i + 1], this.ints[i + 2], this.ints[i + 3],
+                this.ints[i + 4], this.ints[i + 5], this.ints[i + 6], this.ints[i + 7]);
+        i += 8;
+        continue;
+      }
+      String name = (String) this.objects[o++];
+      int id = ids.shapeID(this.ints[i++], name, false);
+      switch (command) {
+        case CommandTokenizer.MOVE:
+          sink.move(id, name, this.ints[i], this.ints[i + 1]);
+          i += 2;
+          break;
+
+        case CommandTokenizer.COLOR:
+          sink.color(id, name, this.ints[i], this.ints[i + 1], this.ints[i + 2]);
+          i += 3;
+          break;
+
+        case CommandTokenizer.RESIZE:
+          sink.resize(id, name, this.ints[i], this.ints[i + 1]);
+          i += 2;
+          break;
+
+        default:
+          sink.remove(id, name);
+          break;
+      }
+    }
+  }
+
+  /**
+   * A helper method that adds a command to the end of the batch.
+   * @param command (int) the command.
+   */
+  private void addCommand(int command) {
+    if (this.commandCount == this.commands.length) {
+      this.commands = Arrays.copyOf(this.commands, this.commandCount * 2);
+    }
+    this.commands[this.commandCount++] = (byte) command;
+  }
+
+  /**
+   * A helper method that adds a number of the last command.
+   * @param value (int) the number.
+   */
+  private void addInt(int value) {
+    if (this.intCount == this.ints.length) {
+      this.ints = Arrays.copyOf(this.ints, this.intCount * 2);
+    }
+    this.ints[this.intCount++] = value;
+  }
+
+  /**
+   * A helper method that adds a String (or error) of the last command.
+   * @param value (Object) the String or error.
+   */
+  private void addObject(Object value) {
+    if (this.objectCount == this.objects.length) {
+      this.objects = Arrays.copyOf(this.objects, this.objectCount * 2);
+    }
+    this.objects[this.objectCount++] = value;
+  }
+}
@@ -0,0 +1,300 @@
+package util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * This class represents a compiler of command files into a compact binary format, with a cache
+ * of compiled files. A CommandCompiler has the directory the compiled files are kept in. Each
+ * compiled file is named after a hash of the contents of the text file it was compiled from, so
+ * loading the same text again (even from another path) reads the compiled file instead of
+ * tokenizing the text, and a changed text file is never matched with an old compiled file.
+ */
+public class CommandCompiler {
+  /**
+   * The directory compiled files are kept in unless another one is given.
+   */
+  public static final File DEFAULT_CACHE_DIRECTORY = new File(System.getProperty("java.io.tmpdir"),
+          "shapes-photo-album-cache");
+
+  private static final int BATCH_SIZE = 1024;
+  private static final int HASH_READ_SIZE = 1024 * 1024;
+
+  private final File cacheDirectory;
+
+  /**
+   * Constructs a CommandCompiler instantiated to the given cache directory. The directory is made
+   * when the first file is compiled if it does not exist.
+   * @param cacheDirectory (File) the directory compiled files are kept in (non-null).
+   * @throws IllegalArgumentException if the cache directory is null.
+   */
+  public CommandCompiler(File cacheDirectory) throws IllegalArgumentException {
+    if (cacheDirectory == null) {
+      throw new IllegalArgumentException("Cache directory cannot be null!");
+    }
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  /**
+   * Returns where the compiled version of the given text file is kept, whether or not it was
+   * compiled yet.
+   * @param textFile (File) the command file.
+   * @return (File) the compiled file for the current contents of the text file.
+   * @throws IOException if the text file cannot be read.
+   */
+  public File getCompiledFile(File textFile) throws IOException {
+    return new File(this.cacheDirectory, hash(textFile) + ".spab");
+  }
+
+  /**
+   * Compiles the given text file into the cache, unless it is already there.
+   * @param textFile (File) the command file.
+   * @return (File) the compiled file.
+   * @throws IOException if the text file cannot be read or the compiled file cannot be written.
+   * @throws RuntimeException if a line of the text file cannot be parsed. Nothing is cached then.
+   */
+  public File compile(File textFile) throws IOException, RuntimeException {
+    File compiled = this.getCompiledFile(textFile);
+    if (!this.isCompiled(compiled)) {
+      this.compileInto(textFile, compiled, null);
+    }
+    return compiled;
+  }
+
+  /**
+   * Loads the given text file into the given receiver, from its compiled file if there is one in
+   * the cache. Otherwise the text is parsed, and compiled into the cache while it is passed on. A
+   * cached file that is cut short or corrupt is found before any of its commands are passed on,
+   * and is compiled again from the text.
+   * @param textFile (File) the command file.
+   * @param sink (CommandSink) the receiver of the commands, such as a photo album.
+   * @throws IOException if a file cannot be read or written.
+   */
+  void load(File textFile, CommandSink sink) throws IOException {
+    File compiled = this.getCompiledFile(textFile);
+    if (this.isCompiled(compiled)) {
+      try (InputStream in = new FileInputStream(compiled)) {
+        BinaryCommandReader reader = new BinaryCommandReader(in);
+        reader.readHeader();
+        reader.replay(sink);
+      }
+    } else {
+      this.compileInto(textFile, compiled, sink);
+    }
+  }
+
+  /**
+   * A helper method that checks whether the given compiled file exists, was written in the
+   * current version of the format, and can be read through to its end. The file name still
+   * matches the text after the file was cut short or damaged, so such a file is deleted, which
+   * makes it be compiled again.
+   * @param compiled (File) the compiled file.
+   * @return (boolean) true if the compiled file can be loaded, false otherwise.
+   * @throws IOException if a damaged compiled file cannot be deleted.
+   */
+  private boolean isCompiled(File compiled) throws IOException {
+    if (!compiled.isFile()) {
+      return false;
+    }
+    try (InputStream in = new FileInputStream(compiled)) {
+      BinaryCommandReader reader = new BinaryCommandReader(in);
+      if (reader.readHeader()) {
+        reader.replay(new DiscardSink());
+        return true;
+      }
+    } catch (IOException e) {
+      // Cut short or corrupt - fall through and compile it again
+    }
+    Files.deleteIfExists(compiled.toPath());
+    return false;
+  }
+
+  /**
+   * A helper method that parses the given text file and writes its commands to the given compiled
+   * file, also passing them to the given receiver if there is one. The compiled file only appears
+   * once it is complete.
+   * @param textFile (File) the command file.
+   * @param compiled (File) where the compiled file goes.
+   * @param sink (CommandSink) receiver of the commands as well, or null if there is none.
+   * @throws IOException if a file cannot be read or written.
+   */
+  private void compileInto(File textFile, File compiled, CommandSink sink) throws IOException {
+    Files.createDirectories(this.cacheDirectory.toPath());
+    File temporary = File.createTempFile(compiled.getName(), ".tmp", this.cacheDirectory);
+    boolean complete = false;
+    try (InputStream in = new FileInputStream(textFile);
+         OutputStream out = new FileOutputStream(temporary)) {
+      BinaryCommandWriter writer = new BinaryCommandWriter(out);
+      CommandSink target = sink == null ? writer : new TeeSink(writer, sink);
+      ShapeIDMap ids = new ShapeIDMap(target);
+      CommandTokenizer tokens = new CommandTokenizer(in);
+      CommandBatch batch = new CommandBatch();
+      boolean more = true;
+      while (more) {
+        more = tokens.nextLine();
+        if (more) {
+          batch.add(tokens);
+        }
+        if (batch.size() == BATCH_SIZE || (!more && batch.size() > 0)) {
+          batch.replay(target, ids);
+          batch = new CommandBatch();
+        }
+      }
+      writer.finish();
+      complete = true;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      if (!complete) {
+        Files.deleteIfExists(temporary.toPath());
+      }
+    }
+    Files.move(temporary.toPath(), compiled.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * A helper method that returns a hash of the contents of the given file, as hexadecimal.
+   * @param file (File) the file.
+   * @return (String) SHA-256 hash of the file's contents.
+   * @throws IOException if the file cannot be read.
+   */
+  private static String hash(File file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available!", e);
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath())) {
+      ByteBuffer bytes = ByteBuffer.allocate(HASH_READ_SIZE);
+      while (channel.read(bytes) >= 0) {
+        bytes.flip();
+        digest.update(bytes);
+        bytes.clear();
+      }
+    }
+
+    StringBuilder hex = new StringBuilder();
+    for (byte each : digest.digest()) {
+      hex.append(Character.forDigit((each >> 4) & 0xF, 16));
+      hex.append(Character.forDigit(each & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * This class represents a receiver of commands that does nothing with them, for reading a
+   * compiled file through without loading it.
+   */
+  private static final class DiscardSink implements CommandSink {
+    @Override
+    public int shapeID(String name, boolean adding) {
+      return -1;
+    }
+
+    @Override
+    public void shape(String type, int id, String name, int x, int y, int sizeX, int sizeY,
+                      int r, int g, int b) {
+      // Nothing to do
+    }
+
+    @Override
+    public void move(int id, String name, int x, int y) {
+      // Nothing to do
+    }
+
+    @Override
+    public void color(int id, String name, int r, int g, int b) {
+      // Nothing to do
+    }
+
+    @Override
+    public void resize(int id, String name, int sizeX, int sizeY) {
+      // Nothing to do
+    }
+
+    @Override
+    public void remove(int id, String name) {
+      // Nothing to do
+    }
+
+    @Override
+    public void snapshot(String description) {
+      // Nothing to do
+    }
+  }
+
+  /**
+   * This class represents a receiver of commands that passes each command on to two other
+   * receivers, one after the other. Shape IDs are given by the second receiver, and the first
+   * receiver is expected not to need any.
+   */
+  private static final class TeeSink implements CommandSink {
+    private final CommandSink first;
+    private final CommandSink second;
+
+    /**
+     * Constructs a TeeSink instantiated to the given receivers.
+     * @param first (CommandSink) receiver each command goes to first.
+     * @param second (CommandSink) receiver each command goes to next.
+     */
+    private TeeSink(CommandSink first, CommandSink second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public int shapeID(String name, boolean adding) {
+      return this.second.shapeID(name, adding);
+    }
+
+    @Override
+    public void shape(String type, int id, String name, int x, int y, int sizeX, int sizeY,
+                      int r, int g, int b) {
+      this.first.shape(type, -1, name, x, y, sizeX, sizeY, r, g, b);
+      this.second.shape(type, id, name, x, y, sizeX, sizeY, r, g, b);
+    }
+
+    @Override
+    public void move(int id, String name, int x, int y) {
+      this.first.move(-1, name, x, y);
+      this.second.move(id, name, x, y);
+    }
+
+    @Override
+    public void color(int id, String name, int r, int g, int b) {
+      this.first.color(-1, name, r, g, b);
+      this.second.color(id, name, r, g, b);
+    }
+
+    @Override
+    public void resize(int id, String name, int sizeX, int sizeY) {
+      this.first.resize(-1, name, sizeX, sizeY);
+      this.second.resize(id, name, sizeX, sizeY);
+    }
+
+    @Override
+    public void remove(int id, String name) {
+      this.first.remove(-1, name);
+      this.second.remove(id, name);
+    }
+
+    @Override
+    public void snapshot(String description) {
+      this.first.snapshot(description);
+      this.second.snapshot(description);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package util;
+
+/**
+ * This interface contains all operations that all receivers of parsed photo album commands should
+ * support. Each operation matches one command of the command file language, so commands can be
+ * passed on from one stage of loading to the next (applied to a model, written to a compiled
+ * file, and so on) without being turned back into text. Commands name their shape both by name
+ * and by the ID shapeID() gave the name, so stages that only need to tell shapes apart never
+ * have to hash the name.
+ */
+interface CommandSink {
+
+  /**
+   * Returns the ID commands passed to this receiver should carry for the given shape name: the
+   * ID the photo album at the end of the stages gives the name. Only a name that is about to be
+   * added is given a new ID; any other name the album does not know gets -1, and commands on it
+   * change nothing. Receivers that are not passing commands on to a photo album return -1.
+   * @param name (String) name of the shape.
+   * @param adding (boolean) whether the name is about to be added by a shape command.
+   * @return (int) ID of the name, or -1 if it has none.
+   */
+  int shapeID(String name, boolean adding);
+
+  /**
+   * Receives a command that creates a new shape and adds it to the album.
+   * @param type (String) type of the shape.
+   * @param id (int) ID of the name of the shape, from shapeID().
+   * @param name (String) name of the shape.
+   * @param x (int) x-coordinate of the shape's point.
+   * @param y (int) y-coordinate of the shape's point.
+   * @param sizeX (int) horizontal size of the shape.
+   * @param sizeY (int) vertical size of the shape.
+   * @param r (int) intensity of the color red.
+   * @param g (int) intensity of the color green.
+   * @param b (int) intensity of the color blue.
+   */
+  void shape(String type, int id, String name, int x, int y, int sizeX, int sizeY, int r, int g,
+             int b);
+
+  /**
+   * Receives a command that moves a shape to a new location.
+   * @param id (int) ID of the name of the shape, from shapeID().
+   * @param name (String) name of the shape.
+   * @param x (int) new x-coordinate of the shape's point.
+   * @param y (int) new y-coordinate of the shape's point.
+   */
+  void move(int id, String name, int x, int y);
+
+  /**
+   * Receives a command that changes the color of a shape.
+   * @param id (int) ID of the name of the shape, from shapeID().
+   * @param name (String) name of the shape.
+   * @param r (int) intensity of the color red.
+   * @param g (int) intensity of the color green.
+   * @param b (int) intensity of the color blue.
+   */
+  void color(int id, String name, int r, int g, int b);
+
+  /**
+   * Receives a command that changes the size of a shape.
+   * @param id (int) ID of the name of the shape, from shapeID().
+   * @param name (String) name of the shape.
+   * @param sizeX (int) new horizontal size of the shape.
+   * @param sizeY (int) new vertical size of the shape.
+   */
+  void resize(int id, String name, int sizeX, int sizeY);
+
+  /**
+   * Receives a command that removes a shape from the album.
+   * @param id (int) ID of the name of the shape, from shapeID().
+   * @param name (String) name of the shape.
+   */
+  void remove(int id, String name);
+
+  /**
+   * Receives a command that takes a snapshot of the album.
+   * @param description (String) description of the snapshot.
+   */
+  void snapshot(String description);
+}
@@ -0,0 +1,617 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import model.IPhotoAlbum;
+
+/**
+ * This class represents a tokenizer for photo album command files. A CommandTokenizer reads bytes
+ * from a stream into a buffer, or maps the file straight into memory, and splits them into lines
+ * and whitespace-separated tokens in place, without making a String per line or per token.
+ * Commands are recognized without making lowercase copies, numbers are parsed straight from the
+ * buffer, and shape names are looked up in a table so each distinct name becomes a String only
+ * once. Only snapshot descriptions get a new String.
+ */
+final class CommandTokenizer {
+  static final int UNKNOWN = 0;
+  static final int SHAPE = 1;
+  static final int MOVE = 2;
+  static final int COLOR = 3;
+  static final int RESIZE = 4;
+  static final int REMOVE = 5;
+  static final int SNAPSHOT = 6;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAPPED_WINDOW_SIZE = 1 << 30;
+  private static final byte[][] KEYWORDS = {null, ascii("shape"), ascii("move"), ascii("color"),
+      ascii("resize"), ascii("remove"), ascii("snapshot")};
+
+  private final InputStream in;
+  private final FileChannel channel;
+  private final NameTable names;
+  private ByteBuffer buffer;
+  private long windowStart;
+  private long end;
+  private int windowSize;
+  private int position;
+  private int limit;
+  private long lineStart;
+  private boolean endOfInput;
+  private boolean skipLineFeed;
+  private int[] starts;
+  private int[] ends;
+  private int count;
+  private byte[] scratch;
+
+  /**
+   * Constructs a CommandTokenizer instantiated to the given stream of command file bytes. The
+   * stream is expected to be UTF-8 (or plain ASCII) text.
+   * @param in (InputStream) the stream to read commands from.
+   */
+  CommandTokenizer(InputStream in) {
+    this.in = in;
+    this.channel = null;
+    this.names = new NameTable();
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    this.starts = new int[16];
+    this.ends = new int[16];
+    this.scratch = new byte[256];
+  }
+
+  /**
+   * Constructs a CommandTokenizer instantiated to the given file channel, which is mapped into
+   * memory and read straight from the page cache instead of being copied into a buffer first.
+   * Files larger than what one mapping can hold are mapped one window at a time. The file is
+   * expected to be UTF-8 (or plain ASCII) text.
+   * @param channel (FileChannel) the open file to read commands from.
+   */
+  CommandTokenizer(FileChannel channel) {
+    this(channel, 0, Long.MAX_VALUE, MAPPED_WINDOW_SIZE);
+  }
+
+  /**
+   * Constructs a CommandTokenizer instantiated to the given part of the file channel, mapped into
+   * memory one window of the given size at a time. Windows grow if a line does not fit in one.
+   * The part should start at the beginning of a line.
+   * @param channel (FileChannel) the open file to read commands from.
+   * @param start (long) position in the file where reading starts.
+   * @param end (long) position in the file where reading stops (past the end of the file reads
+   *            up to the end of the file).
+   * @param windowSize (int) bytes of the file to map at a time (positive).
+   */
+  CommandTokenizer(FileChannel channel, long start, long end, int windowSize) {
+    this.in = null;
+    this.channel = channel;
+    this.names = new NameTable();
+    this.buffer = ByteBuffer.allocate(0);
+    this.windowStart = start;
+    this.end = end;
+    this.windowSize = windowSize;
+    this.starts = new int[16];
+    this.ends = new int[16];
+    this.scratch = new byte[256];
+  }
+
+  /**
+   * Moves on to the next line of the input and splits it into tokens. Empty lines have no tokens.
+   * @return (boolean) true if there was another line, false at the end of the input.
+   * @throws IOException if the stream cannot be read.
+   */
+  boolean nextLine() throws IOException {
+    this.count = 0;
+
+    // Find the end of the line, reading more of the stream if it runs past the buffer
+    int i = this.position;
+    while (true) {
+      while (i < this.limit && this.buffer.get(i) != '\n' && this.buffer.get(i) != '\r') {
+        i++;
+      }
+      if (i < this.limit) {
+        break;
+      }
+      int scanned = i - this.position;
+      boolean more = this.fill();
+      i = this.position + scanned;
+      if (!more) {
+        break;
+      }
+    }
+
+    // A \n right after a \r ends the same line as the \r
+    if (this.skipLineFeed && this.position < this.limit && this.buffer.get(this.position) == '\n'
+            && i == this.position) {
+      this.skipLineFeed = false;
+      this.position++;
+      return this.nextLine();
+    }
+    this.skipLineFeed = false;
+    if (i == this.position && i >= this.limit) {
+      return false;
+    }
+
+    // Split the line into tokens
+    this.lineStart = this.windowStart + this.position;
+    int t = this.position;
+    while (t < i) {
+      if (isWhitespace(this.buffer.get(t))) {
+        t++;
+        continue;
+      }
+      int start = t;
+      while (t < i && !isWhitespace(this.buffer.get(t))) {
+        t++;
+      }
+      this.addToken(start, t);
+    }
+
+    // Move past the line break
+    if (i < this.limit) {
+      this.skipLineFeed = this.buffer.get(i) == '\r';
+      i++;
+    }
+    this.position = i;
+    return true;
+  }
+
+  /**
+   * Returns which command the current line has, going by its first token (in any case).
+   * @return (int) one of the command constants, or UNKNOWN if the line is empty or not a command.
+   */
+  int command() {
+    if (this.count == 0) {
+      return UNKNOWN;
+    }
+    for (int c = SHAPE; c <= SNAPSHOT; c++) {
+      if (this.tokenEqualsIgnoreCase(0, KEYWORDS[c])) {
+        return c;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * Returns where the current line starts in the input.
+   * @return (long) position in the file (or stream) of the first byte of the current line.
+   */
+  long lineStart() {
+    return this.lineStart;
+  }
+
+  /**
+   * Returns the number of tokens on the current line.
+   * @return (int) number of tokens on the current line.
+   */
+  int tokenCount() {
+    return this.count;
+  }
+
+  /**
+   * Returns the token at the given position on the current line as a String. Equal tokens give
+   * back the same String each time, so repeated shape names are not copied again.
+   * @param index (int) position of the token on the line, starting from 0.
+   * @return (String) the token.
+   * @throws IllegalArgumentException if the line has no token at the given position.
+   */
+  String name(int index) throws IllegalArgumentException {
+    this.checkToken(index);
+    return this.names.get(this.buffer, this.starts[index], this.ends[index]);
+  }
+
+  /**
+   * Returns the ID this tokenizer gives the token at the given position on the current line.
+   * Each distinct token gets the next ID (0, 1, 2, and so on) the first time it is seen, and the
+   * same ID every time after that.
+   * @param index (int) position of the token on the line, starting from 0.
+   * @return (int) ID of the token.
+   * @throws IllegalArgumentException if the line has no token at the given position.
+   */
+  int nameID(int index) throws IllegalArgumentException {
+    this.checkToken(index);
+    return this.names.nameID(this.buffer, this.starts[index], this.ends[index]);
+  }
+
+  /**
+   * Returns the token this tokenizer gave the given ID, as the same String name() gives back.
+   * @param nameID (int) ID of the token, from nameID().
+   * @return (String) the token.
+   */
+  String nameOf(int nameID) {
+    return this.names.nameOf(nameID);
+  }
+
+  /**
+   * Returns the ID the given photo album gives the shape name at the given position on the
+   * current line, or -1 if the album has no such name. The ID is looked up in the album only
+   * until the album knows the name, so repeated names cost no String hashing, and names are never
+   * given a new ID. All calls must pass the same album.
+   * @param index (int) position of the token on the line, starting from 0.
+   * @param model (IPhotoAlbum) the photo album the ID is for.
+   * @return (int) ID of the shape name, or -1 if it has none.
+   * @throws IllegalArgumentException if the line has no token at the given position.
+   */
+  int shapeID(int index, IPhotoAlbum model) throws IllegalArgumentException {
+    this.checkToken(index);
+    return this.names.id(this.buffer, this.starts[index], this.ends[index], model);
+  }
+
+  /**
+   * Parses the token at the given position on the current line as an int, the same way as
+   * Integer.parseInt.
+   * @param index (int) position of the token on the line, starting from 0.
+   * @return (int) value of the token.
+   * @throws IllegalArgumentException if the line has no token at the given position.
+   * @throws NumberFormatException if the token is not an int.
+   */
+  int intValue(int index) throws IllegalArgumentException, NumberFormatException {
+    this.checkToken(index);
+    int i = this.starts[index];
+    int end = this.ends[index];
+    boolean negative = this.buffer.get(i) == '-';
+    if (negative || this.buffer.get(i) == '+') {
+      i++;
+    }
+    if (i == end) {
+      throw this.notAnInt(index);
+    }
+
+    // Add up digits as a negative number so that Integer.MIN_VALUE fits
+    long limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = this.buffer.get(i) - '0';
+      if (digit < 0 || digit > 9) {
+        throw this.notAnInt(index);
+      }
+      value = value * 10 - digit;
+      if (value < limit) {
+        throw this.notAnInt(index);
+      }
+    }
+    return (int) (negative ? value : -value);
+  }
+
+  /**
+   * Returns the tokens from the given position to the end of the current line, each followed by
+   * a single space. Returns an empty String if there are no such tokens.
+   * @param from (int) position of the first token, starting from 0.
+   * @return (String) the tokens, each followed by a space.
+   */
+  String rest(int from) {
+    int length = 0;
+    for (int t = from; t < this.count; t++) {
+      length += this.ends[t] - this.starts[t] + 1;
+    }
+    if (length > this.scratch.length) {
+      this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+    }
+
+    int n = 0;
+    for (int t = from; t < this.count; t++) {
+      int tokenLength = this.ends[t] - this.starts[t];
+      this.buffer.get(this.starts[t], this.scratch, n, tokenLength);
+      n += tokenLength;
+      this.scratch[n++] = ' ';
+    }
+    return new String(this.scratch, 0, n, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A helper method that makes more of the input available in the buffer, keeping the unread part
+   * of the buffer (the current line so far) at the front. Grows the buffer if a line does not fit
+   * in it.
+   * @return (boolean) true if more bytes were made available, false at the end of the input.
+   * @throws IOException if the input cannot be read.
+   */
+  private boolean fill() throws IOException {
+    if (this.endOfInput) {
+      return false;
+    }
+    if (this.channel != null) {
+      return this.mapNextWindow();
+    }
+    int kept = this.limit - this.position;
+    byte[] bytes = this.buffer.array();
+    if (kept == bytes.length) {
+      bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      this.buffer = ByteBuffer.wrap(bytes);
+    }
+    System.arraycopy(bytes, this.position, bytes, 0, kept);
+    this.windowStart += this.position;
+    this.position = 0;
+    this.limit = kept;
+
+    int read = this.in.read(bytes, this.limit, bytes.length - this.limit);
+    if (read < 0) {
+      this.endOfInput = true;
+      return false;
+    }
+    this.limit += read;
+    return true;
+  }
+
+  /**
+   * A helper method that maps the next window of the file, starting at the unread part of the
+   * current window (the current line so far). Makes the window larger if a line does not fit in
+   * it.
+   * @return (boolean) true if more bytes were mapped, false at the end of the file.
+   * @throws IOException if the file cannot be mapped.
+   */
+  private boolean mapNextWindow() throws IOException {
+    int kept = this.limit - this.position;
+    if (kept == this.windowSize) {
+      if (this.windowSize == Integer.MAX_VALUE) {
+        throw new IOException("Line is too long to be mapped into memory!");
+      }
+      this.windowSize = (int) Math.min(Integer.MAX_VALUE, 2L * this.windowSize);
+    }
+    this.windowStart += this.position;
+    this.position = 0;
+    this.limit = kept;
+
+    // Map again even at the end of the file, so the kept bytes start at position 0
+    long end = Math.min(this.end, this.channel.size());
+    int size = (int) Math.max(0, Math.min(this.windowSize, end - this.windowStart));
+    if (size > 0) {
+      this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart, size);
+    }
+    this.limit = size;
+    if (size <= kept) {
+      this.endOfInput = true;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * A helper method that records a token found on the current line.
+   * @param start (int) position in the buffer where the token starts.
+   * @param end (int) position in the buffer right after the token.
+   */
+  private void addToken(int start, int end) {
+    if (this.count == this.starts.length) {
+      this.starts = Arrays.copyOf(this.starts, this.count * 2);
+      this.ends = Arrays.copyOf(this.ends, this.count * 2);
+    }
+    this.starts[this.count] = start;
+    this.ends[this.count] = end;
+    this.count++;
+  }
+
+  /**
+   * A helper method that checks whether the token at the given position matches the given
+   * lowercase keyword, ignoring case.
+   * @param index (int) position of the token on the line.
+   * @param keyword (byte[]) lowercase ASCII keyword.
+   * @return (boolean) true if the token is the keyword, false otherwise.
+   */
+  private boolean tokenEqualsIgnoreCase(int index, byte[] keyword) {
+    int start = this.starts[index];
+    if (this.ends[index] - start != keyword.length) {
+      return false;
+    }
+    for (int i = 0; i < keyword.length; i++) {
+      int b = this.buffer.get(start + i);
+      if (b >= 'A' && b <= 'Z') {
+        b += 'a' - 'A';
+      }
+      if (b != keyword[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A helper method that checks that the current line has a token at the given position.
+   * @param index (int) position of the token on the line.
+   * @throws IllegalArgumentException if the line has no token at the given position.
+   */
+  private void checkToken(int index) throws IllegalArgumentException {
+    if (index < 0 || index >= this.count) {
+      throw new IllegalArgumentException("Command is missing a value at position " + index + "!");
+    }
+  }
+
+  /**
+   * A helper method that makes the exception thrown for a token that is not an int.
+   * @param index (int) position of the token on the line.
+   * @return (NumberFormatException) the exception to be thrown.
+   */
+  private NumberFormatException notAnInt(int index) {
+    byte[] token = new byte[this.ends[index] - this.starts[index]];
+    this.buffer.get(this.starts[index], token);
+    return new NumberFormatException("For input string: \""
+            + new String(token, StandardCharsets.UTF_8) + "\"");
+  }
+
+  /**
+   * A helper method that checks whether the given byte separates tokens. Bytes of multi-byte UTF-8
+   * characters are negative and never separate tokens.
+   * @param b (byte) the byte to check.
+   * @return (boolean) true if the byte is whitespace or a control character, false otherwise.
+   */
+  private static boolean isWhitespace(byte b) {
+    return b >= 0 && b <= ' ';
+  }
+
+  /**
+   * A helper method that returns the bytes of the given ASCII String.
+   * @param s (String) the String.
+   * @return (byte[]) the bytes of the String.
+   */
+  private static byte[] ascii(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * This class represents a table of names read from a command file. A NameTable hashes names
+   * straight from the bytes of the buffer and hands back the String made the first time that name
+   * was seen, a dense ID of its own for that name, and the shape ID a photo album gave that name.
+   */
+  private static final class NameTable {
+    private byte[][] keys;
+    private String[] values;
+    private int[] nameIDs;
+    private int[] ids;
+    private String[] byID;
+    private int size;
+
+    /**
+     * Constructs an empty NameTable.
+     */
+    private NameTable() {
+      this.keys = new byte[64][];
+      this.values = new String[64];
+      this.nameIDs = new int[64];
+      this.ids = new int[64];
+      this.byID = new String[32];
+    }
+
+    /**
+     * Returns the String for the name in the given part of the buffer, making it the first time
+     * the name is seen.
+     * @param buffer (ByteBuffer) buffer the name is in.
+     * @param start (int) position in the buffer where the name starts.
+     * @param end (int) position in the buffer right after the name.
+     * @return (String) the name.
+     */
+    private String get(ByteBuffer buffer, int start, int end) {
+      int slot = this.slot(buffer, start, end);
+      return this.values[slot];
+    }
+
+    /**
+     * Returns the dense ID of the name in the given part of the buffer, giving it the next ID the
+     * first time the name is seen.
+     * @param buffer (ByteBuffer) buffer the name is in.
+     * @param start (int) position in the buffer where the name starts.
+     * @param end (int) position in the buffer right after the name.
+     * @return (int) dense ID of the name.
+     */
+    private int nameID(ByteBuffer buffer, int start, int end) {
+      return this.nameIDs[this.slot(buffer, start, end)];
+    }
+
+    /**
+     * Returns the name with the given dense ID.
+     * @param nameID (int) dense ID of the name.
+     * @return (String) the name.
+     */
+    private String nameOf(int nameID) {
+      return this.byID[nameID];
+    }
+
+    /**
+     * Returns the shape ID the given photo album gives the name in the given part of the buffer,
+     * or -1 if it has none. The album is asked until it knows the name.
+     * @param buffer (ByteBuffer) buffer the name is in.
+     * @param start (int) position in the buffer where the name starts.
+     * @param end (int) position in the buffer right after the name.
+     * @param model (IPhotoAlbum) the photo album the ID is for.
+     * @return (int) ID of the name, or -1 if it has none.
+     */
+    private int id(ByteBuffer buffer, int start, int end, IPhotoAlbum model) {
+      int slot = this.slot(buffer, start, end);
+      if (this.ids[slot] < 0) {
+        this.ids[slot] = model.findShapeID(this.values[slot]);
+      }
+      return this.ids[slot];
+    }
+
+    /**
+     * A helper method that returns the slot of the name in the given part of the buffer, adding
+     * the name to the table the first time it is seen.
+     * @param buffer (ByteBuffer) buffer the name is in.
+     * @param start (int) position in the buffer where the name starts.
+     * @param end (int) position in the buffer right after the name.
+     * @return (int) slot of the name in the table.
+     */
+    private int slot(ByteBuffer buffer, int start, int end) {
+      int hash = 1;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + buffer.get(i);
+      }
+
+      // Open addressing: look at following slots until the name or an empty slot is found
+      int mask = this.keys.length - 1;
+      int slot = (hash ^ (hash >>> 16)) & mask;
+      while (this.keys[slot] != null) {
+        if (matches(this.keys[slot], buffer, start, end)) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      byte[] key = new byte[end - start];
+      buffer.get(start, key);
+      String value = new String(key, StandardCharsets.UTF_8);
+      this.keys[slot] = key;
+      this.values[slot] = value;
+      this.ids[slot] = -1;
+      if (this.size == this.byID.length) {
+        this.byID = Arrays.copyOf(this.byID, this.size * 2);
+      }
+      this.nameIDs[slot] = this.size;
+      this.byID[this.size] = value;
+      if (++this.size * 2 > this.keys.length) {
+        this.grow();
+        return this.slot(buffer, start, end);
+      }
+      return slot;
+    }
+
+    /**
+     * A helper method that checks whether the given key has the same bytes as the given part of
+     * the buffer.
+     * @param key (byte[]) the key in the table.
+     * @param buffer (ByteBuffer) buffer the name is in.
+     * @param start (int) position in the buffer where the name starts.
+     * @param end (int) position in the buffer right after the name.
+     * @return (boolean) true if the bytes are the same, false otherwise.
+     */
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+      if (key.length != end - start) {
+        return false;
+      }
+      for (int i = 0; i < key.length; i++) {
+        if (key[i] != buffer.get(start + i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * A helper method that doubles the number of slots in the table.
+     */
+    private void grow() {
+      byte[][] oldKeys = this.keys;
+      String[] oldValues = this.values;
+      int[] oldNameIDs = this.nameIDs;
+      int[] oldIDs = this.ids;
+      this.keys = new byte[oldKeys.length * 2][];
+      this.values = new String[oldKeys.length * 2];
+      this.nameIDs = new int[oldKeys.length * 2];
+      this.ids = new int[oldKeys.length * 2];
+      int mask = this.keys.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) {
+          int hash = Arrays.hashCode(oldKeys[i]);
+          int slot = (hash ^ (hash >>> 16)) & mask;
+          while (this.keys[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          this.keys[slot] = oldKeys[i];
+          this.values[slot] = oldValues[i];
+          this.nameIDs[slot] = oldNameIDs[i];
+          this.ids[slot] = oldIDs[i];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package util;
+
+/**
+ * This enum represents the ways a PhotoFileReader can load a command file.
+ */
+public enum LoadMode {
+  /**
+   * Reads the file as a stream through a buffer on the heap. Works for any file.
+   */
+  STREAM,
+
+  /**
+   * Maps the file into memory and parses its bytes straight from the page cache, without copying
+   * them into a buffer first. Best for very large files.
+   */
+  MEMORY_MAPPED,
+
+  /**
+   * Maps the file into memory, splits it into chunks at line boundaries, and parses the chunks on
+   * all cores at once. Commands are still applied in the order of the file. Best for very large
+   * files on machines with many cores.
+   */
+  PARALLEL,
+
+  /**
+   * Reads and tokenizes the file on a background thread while the commands read so far are
+   * applied to the model, passing batches of commands between them through a bounded queue. How
+   * full the queue was is reported once the load is done, to show which of the two was slower.
+   */
+  PIPELINED,
+
+  /**
+   * Loads the compiled binary version of the file from the cache if the cache has one for the
+   * file's current contents. Otherwise reads the file as a stream and compiles it into the cache
+   * for next time.
+   */
+  COMPILED,
+
+  /**
+   * Indexes where each snapshot is in the file, with a checkpoint of all the shapes every few
+   * snapshots, and saves the index next to the file (or in the cache directory, if the file's
+   * directory cannot be written to) so the next load of the unchanged file skips the pass.
+   * Snapshots are built from the file only when they are looked at, instead of all being taken
+   * by the model. Best for very large albums where only some snapshots are looked at.
+   */
+  INDEXED,
+
+  /**
+   * Parses the file like PARALLEL, and also applies the commands between two snapshots on all
+   * cores, with the shapes split between the threads. Only the net change to each shape reaches
+   * the model at each snapshot. Best for files that change many shapes many times between
+   * snapshots.
+   */
+  PARTITIONED
+}
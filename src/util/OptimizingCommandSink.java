@@ -0,0 +1,278 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class represents a stage of loading that leaves out commands that make no difference to
+ * any snapshot. An OptimizingCommandSink holds back the commands between two snapshot commands
+ * and passes on only what is needed to get to the same shapes at the next snapshot: repeated
+ * moves, resizes, or color changes of a shape become the last one, changes to a shape that was
+ * added since the last snapshot go straight into the command that adds it, changes to a shape
+ * that is then removed are dropped, and a shape that is added and removed again is dropped
+ * altogether. Commands that do nothing (changes to shapes that are not in the album, or a shape
+ * with a name that is taken) are dropped too. Commands whose values the album rejects are passed
+ * on as they are, so loading still fails the same way.
+ *
+ * <p>Commands on different shapes do not depend on each other, so a command that replaces a
+ * later one keeps the earlier one's place. The names of the shapes in the album are tracked by
+ * the sink itself, so the album must start empty and get every command through the sink. Held
+ * back commands keep the shape ID they came with, and shape IDs are handed out by the next stage.
+ */
+final class OptimizingCommandSink implements CommandSink {
+  private final CommandSink next;
+  private final Set<String> shapes;
+  private final Map<String, ShapeCommands> changes;
+  private final List<Command> commands;
+
+  /**
+   * Constructs an OptimizingCommandSink instantiated to the stage commands are passed on to.
+   * @param next (CommandSink) the receiver of the commands that are kept.
+   */
+  OptimizingCommandSink(CommandSink next) {
+    this.next = next;
+    this.shapes = new HashSet<>();
+    this.changes = new HashMap<>();
+    this.commands = new ArrayList<>();
+  }
+
+  @Override
+  public int shapeID(String name, boolean adding) {
+    return this.next.shapeID(name, adding);
+  }
+
+  @Override
+  public void shape(String type, int id, String name, int x, int y, int sizeX, int sizeY, int r,
+                    int g, int b) {
+    // Rejected by the album: negative sizes for any type, colors only for a known type
+    boolean known = type.equalsIgnoreCase("rectangle") || type.equalsIgnoreCase("oval");
+    if (sizeX < 0 || sizeY < 0 || (known && !isColor(r, g, b))) {
+      this.add(CommandTokenizer.SHAPE, type, id, name, x, y, sizeX, sizeY, r, g, b);
+    }
+
+    // A shape of an unknown type, or with a name that is taken, is never added
+    else if (known && this.shapes.add(name)) {
+      this.changesOf(name).added = this.add(CommandTokenizer.SHAPE, type, id, name, x, y, sizeX,
+              sizeY, r, g, b);
+    }
+  }
+
+  @Override
+  public void move(int id, String name, int x, int y) {
+    if (!this.shapes.contains(name)) {
+      return;
+    }
+    ShapeCommands changes = this.changesOf(name);
+    if (changes.added != null) {
+      changes.added.set(0, x, y);
+    } else if (changes.move != null) {
+      changes.move.set(0, x, y);
+    } else {
+      changes.move = this.add(CommandTokenizer.MOVE, null, id, name, x, y);
+    }
+  }
+
+  @Override
+  public void color(int id, String name, int r, int g, int b) {
+    if (!isColor(r, g, b)) {
+      this.add(CommandTokenizer.COLOR, null, id, name, r, g, b);
+      return;
+    }
+    if (!this.shapes.contains(name)) {
+      return;
+    }
+    ShapeCommands changes = this.changesOf(name);
+    if (changes.added != null) {
+      changes.added.set(4, r, g, b);
+    } else if (changes.color != null) {
+      changes.color.set(0, r, g, b);
+    } else {
+      changes.color = this.add(CommandTokenizer.COLOR, null, id, name, r, g, b);
+    }
+  }
+
+  @Override
+  public void resize(int id, String name, int sizeX, int sizeY) {
+    if (sizeX < 0 || sizeY < 0) {
+      this.add(CommandTokenizer.RESIZE, null, id, name, sizeX, sizeY);
+      return;
+    }
+    if (!this.shapes.contains(name)) {
+      return;
+    }
+    ShapeCommands changes = this.changesOf(name);
+    if (changes.added != null) {
+      changes.added.set(2, sizeX, sizeY);
+    } else if (changes.resize != null) {
+      changes.resize.set(0, sizeX, sizeY);
+    } else {
+      changes.resize = this.add(CommandTokenizer.RESIZE, null, id, name, sizeX, sizeY);
+    }
+  }
+
+  @Override
+  public void remove(int id, String name) {
+    if (!this.shapes.remove(name)) {
+      return;
+    }
+
+    // Nothing done to the shape since the last snapshot matters any more
+    ShapeCommands changes = this.changes.remove(name);
+    if (changes != null) {
+      changes.drop();
+      if (changes.added != null) {
+        return;
+      }
+    }
+    this.add(CommandTokenizer.REMOVE, null, id, name);
+  }
+
+  @Override
+  public void snapshot(String description) {
+    this.flush();
+    this.next.snapshot(description);
+  }
+
+  /**
+   * Passes on the commands held back since the last snapshot. Must be called once the last
+   * command was received, since commands after the last snapshot are otherwise never passed on.
+   */
+  void flush() {
+    for (Command each : this.commands) {
+      if (!each.dropped) {
+        each.passTo(this.next);
+      }
+    }
+    this.commands.clear();
+    this.changes.clear();
+  }
+
+  /**
+   * A helper method that holds back a new command until the next snapshot.
+   * @param command (int) the command, one of the CommandTokenizer constants.
+   * @param type (String) type of the shape, or null if the command is not a shape command.
+   * @param id (int) ID of the name of the shape.
+   * @param name (String) name of the shape.
+   * @param values (int...) numbers of the command, in the order of the command file.
+   * @return (Command) the command.
+   */
+  private Command add(int command, String type, int id, String name, int... values) {
+    Command held = new Command(command, type, id, name, values);
+    this.commands.add(held);
+    return held;
+  }
+
+  /**
+   * A helper method that returns the commands held back for the shape with the given name,
+   * starting a new (empty) set of them if there are none.
+   * @param name (String) name of the shape.
+   * @return (ShapeCommands) commands held back for the shape.
+   */
+  private ShapeCommands changesOf(String name) {
+    return this.changes.computeIfAbsent(name, key -> new ShapeCommands());
+  }
+
+  /**
+   * A helper method that checks whether the given values make a valid color.
+   * @param r (int) intensity of the color red.
+   * @param g (int) intensity of the color green.
+   * @param b (int) intensity of the color blue.
+   * @return (boolean) true if every intensity is between 0 and 255, inclusive.
+   */
+  private static boolean isColor(int r, int g, int b) {
+    return (r & ~0xFF) == 0 && (g & ~0xFF) == 0 && (b & ~0xFF) == 0;
+  }
+
+  /**
+   * This class represents a command held back until the next snapshot. A Command has which
+   * command it is, its shape type (for shape commands), the ID and name of its shape, and its
+   * numbers, and can be marked as dropped.
+   */
+  private static final class Command {
+    private final int command;
+    private final String type;
+    private final int id;
+    private final String name;
+    private final int[] values;
+    private boolean dropped;
+
+    /**
+     * Constructs a Command instantiated to the given command, shape type, shape ID and name, and
+     * numbers.
+     * @param command (int) the command, one of the CommandTokenizer constants.
+     * @param type (String) type of the shape, or null if the command is not a shape command.
+     * @param id (int) ID of the name of the shape.
+     * @param name (String) name of the shape.
+     * @param values (int[]) numbers of the command, in the order of the command file.
+     */
+    private Command(int command, String type, int id, String name, int[] values) {
+      this.command = command;
+      this.type = type;
+      this.id = id;
+      this.name = name;
+      this.values = values;
+    }
+
+    /**
+     * Replaces the numbers of the command starting at the given position.
+     * @param from (int) position of the first number to replace.
+     * @param values (int...) the new numbers.
+     */
+    private void set(int from, int... values) {
+      System.arraycopy(values, 0, this.values, from, values.length);
+    }
+
+    /**
+     * Passes the command on to the given receiver.
+     * @param sink (CommandSink) the receiver of the command.
+     */
+    private void passTo(CommandSink sink) {
+      int[] v = this.values;
+      switch (this.command) {
+        case CommandTokenizer.SHAPE:
+          sink.shape(this.type, this.id, this.name, v[0], v[1], v[2], v[3], v[4], v[5],
+                  v[6]);
+          break;
+        case CommandTokenizer.MOVE:
+          sink.move(this.id, this.name, v[0], v[1]);
+          break;
+        case CommandTokenizer.COLOR:
+          sink.color(this.id, this.name, v[0], v[1], v[2]);
+          break;
+        case CommandTokenizer.RESIZE:
+          sink.resize(this.id, this.name, v[0], v[1]);
+          break;
+        default:
+          sink.remove(this.id, this.name);
+          break;
+      }
+    }
+  }
+
+  /**
+   * This class represents the commands held back for one shape since the last snapshot. A
+   * ShapeCommands has the command that added the shape (if it was added since then), and
+   * otherwise the last move, color change, and resize of the shape.
+   */
+  private static final class ShapeCommands {
+    private Command added;
+    private Command move;
+    private Command color;
+    private Command resize;
+
+    /**
+     * Marks every command held back for the shape as dropped.
+     */
+    private void drop() {
+      for (Command each : new Command[] {this.added, this.move, this.color, this.resize}) {
+        if (each != null) {
+          each.dropped = true;
+        }
+      }
+    }
+  }
+}
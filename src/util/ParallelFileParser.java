@@ -0,0 +1,135 @@
+package util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class represents a parser that reads a command file on several threads. A
+ * ParallelFileParser splits the file into chunks at line boundaries, maps and tokenizes the chunks
+ * on a fork-join pool into batches of commands, and applies the batches to the photo album in the
+ * order of the file, since what each snapshot captures depends on that order. Only a few chunks
+ * ahead of the one being applied are parsed at a time, so the batches waiting to be applied stay
+ * small however large the file is.
+ */
+final class ParallelFileParser {
+  private static final long MIN_CHUNK_SIZE = 64 * 1024;
+  private static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+  private static final int CHUNKS_PER_THREAD = 4;
+  private static final int BOUNDARY_READ_SIZE = 4096;
+  private static final int MAPPED_WINDOW_SIZE = 1 << 30;
+
+  private final FileChannel channel;
+  private final ForkJoinPool pool;
+
+  /**
+   * Constructs a ParallelFileParser instantiated to the given open file and the pool to parse it
+   * on.
+   * @param channel (FileChannel) the open file to read commands from.
+   * @param pool (ForkJoinPool) the pool to parse chunks of the file on.
+   */
+  ParallelFileParser(FileChannel channel, ForkJoinPool pool) {
+    this.channel = channel;
+    this.pool = pool;
+  }
+
+  /**
+   * Parses the whole file and passes its commands to the given receiver in order.
+   * @param sink (CommandSink) the receiver of the commands, such as a photo album.
+   * @throws IOException if the file cannot be read.
+   */
+  void parseInto(CommandSink sink) throws IOException {
+    long size = this.channel.size();
+    int threads = this.pool.getParallelism();
+    long chunkSize = Math.max(MIN_CHUNK_SIZE,
+            Math.min(MAX_CHUNK_SIZE, size / ((long) threads * CHUNKS_PER_THREAD)));
+
+    // Keep a few chunks per thread being parsed while the oldest one is applied
+    Deque<CompletableFuture<CommandBatch>> parsing = new ArrayDeque<>();
+    long start = 0;
+    while (start < size || !parsing.isEmpty()) {
+      while (start < size && parsing.size() < threads * CHUNKS_PER_THREAD) {
+        long chunkStart = start;
+        long chunkEnd = this.lineBoundary(start + chunkSize, size);
+        parsing.add(CompletableFuture.supplyAsync(() -> this.parseChunk(chunkStart, chunkEnd),
+                this.pool));
+        start = chunkEnd;
+      }
+      this.join(parsing.poll()).replay(sink);
+    }
+  }
+
+  /**
+   * A helper method that parses the given part of the file into a batch of commands.
+   * @param start (long) position in the file where the chunk starts.
+   * @param end (long) position in the file where the chunk ends.
+   * @return (CommandBatch) commands in the chunk, in order.
+   * @throws UncheckedIOException if the file cannot be read.
+   */
+  private CommandBatch parseChunk(long start, long end) throws UncheckedIOException {
+    try {
+      CommandTokenizer tokens = new CommandTokenizer(this.channel, start, end, MAPPED_WINDOW_SIZE);
+      CommandBatch batch = new CommandBatch();
+      while (tokens.nextLine()) {
+        batch.add(tokens);
+      }
+      return batch;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * A helper method that waits for the given chunk to be parsed.
+   * @param chunk (CompletableFuture</CommandBatch>) the chunk being parsed.
+   * @return (CommandBatch) commands in the chunk, in order.
+   * @throws IOException if the file could not be read.
+   */
+  private CommandBatch join(CompletableFuture<CommandBatch> chunk) throws IOException {
+    try {
+      return chunk.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * A helper method that returns the start of the first line that starts at or after the given
+   * position, so that chunks split the file between lines. Lines are split after a \n only, so a
+   * \r\n is never split in two.
+   * @param position (long) position in the file to look from.
+   * @param size (long) size of the file.
+   * @return (long) position right after the next \n, or the size of the file if there is none.
+   * @throws IOException if the file cannot be read.
+   */
+  private long lineBoundary(long position, long size) throws IOException {
+    if (position >= size) {
+      return size;
+    }
+    ByteBuffer bytes = ByteBuffer.allocate(BOUNDARY_READ_SIZE);
+    long next = position - 1;
+    while (next < size) {
+      bytes.clear();
+      int read = this.channel.read(bytes, next);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (bytes.get(i) == '\n') {
+          return next + i + 1;
+        }
+      }
+      next += read;
+    }
+    return size;
+  }
+}
@@ -0,0 +1,444 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class represents a stage of loading that applies commands on several threads. Commands
+ * on different shapes do not depend on each other between two snapshots, so a
+ * PartitionedCommandSink splits the shapes into partitions by name, one per thread of a fork-join
+ * pool, and keeps the latest state of every shape in its partition. Commands are handed to the
+ * partition of their shape, and the partitions apply them to their shapes at the same time. At
+ * each snapshot command every partition is finished first, and then only the net change to each
+ * shape since the last snapshot (added, removed, moved, resized, or recolored) is passed on, in an
+ * order that leaves the album exactly as if every command had been passed on one by one.
+ *
+ * <p>Commands whose values the album rejects are never split up: everything before them is passed
+ * on first, and then the command itself, so loading still fails the same way. The shapes of the
+ * album are tracked by the sink itself, so the album must start empty and get every command
+ * through the sink. Each shape keeps the ID its shape command came with for the changes passed
+ * on, and shape IDs are handed out by the next stage.
+ */
+final class PartitionedCommandSink implements CommandSink {
+  static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+  private final CommandSink next;
+  private final ForkJoinPool pool;
+  private final Partition[] partitions;
+  private final int chunkSize;
+  private int pending;
+  private long sequence;
+
+  /**
+   * Constructs a PartitionedCommandSink instantiated to the stage commands are passed on to, the
+   * pool to apply commands on, and the number of commands handed to the partitions before they
+   * apply them.
+   * @param next (CommandSink) the receiver of the net changes.
+   * @param pool (ForkJoinPool) the pool to apply commands on, with one partition per thread.
+   * @param chunkSize (int) number of commands handed out before the partitions apply them
+   *                  (positive).
+   * @throws IllegalArgumentException if the chunk size is not positive.
+   */
+  PartitionedCommandSink(CommandSink next, ForkJoinPool pool, int chunkSize)
+          throws IllegalArgumentException {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive!");
+    }
+    this.next = next;
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+    this.partitions = new Partition[pool.getParallelism()];
+    for (int i = 0; i < this.partitions.length; i++) {
+      this.partitions[i] = new Partition();
+    }
+  }
+
+  @Override
+  public int shapeID(String name, boolean adding) {
+    return this.next.shapeID(name, adding);
+  }
+
+  @Override
+  public void shape(String type, int id, String name, int x, int y, int sizeX, int sizeY, int r,
+                    int g, int b) {
+    boolean known = type.equalsIgnoreCase("rectangle") || type.equalsIgnoreCase("oval");
+    if (sizeX < 0 || sizeY < 0 || (known && !isColor(r, g, b))) {
+      this.flush();
+      this.next.shape(type, id, name, x, y, sizeX, sizeY, r, g, b);
+    } else if (known) {
+      this.hand(CommandTokenizer.SHAPE, type, id, name, x, y, sizeX, sizeY, r, g, b);
+    }
+  }
+
+  @Override
+  public void move(int id, String name, int x, int y) {
+    this.hand(CommandTokenizer.MOVE, null, id, name, x, y, 0, 0, 0, 0, 0);
+  }
+
+  @Override
+  public void color(int id, String name, int r, int g, int b) {
+    if (!isColor(r, g, b)) {
+      this.flush();
+      this.next.color(id, name, r, g, b);
+    } else {
+      this.hand(CommandTokenizer.COLOR, null, id, name, 0, 0, 0, 0, r, g, b);
+    }
+  }
+
+  @Override
+  public void resize(int id, String name, int sizeX, int sizeY) {
+    if (sizeX < 0 || sizeY < 0) {
+      this.flush();
+      this.next.resize(id, name, sizeX, sizeY);
+    } else {
+      this.hand(CommandTokenizer.RESIZE, null, id, name, 0, 0, sizeX, sizeY, 0, 0, 0);
+    }
+  }
+
+  @Override
+  public void remove(int id, String name) {
+    this.hand(CommandTokenizer.REMOVE, null, id, name, 0, 0, 0, 0, 0, 0, 0);
+  }
+
+  @Override
+  public void snapshot(String description) {
+    this.flush();
+    this.next.snapshot(description);
+  }
+
+  /**
+   * Waits for every partition to apply the commands handed to it, and passes on the net change
+   * to each shape since the last time. Must be called once the last command was received, since
+   * commands after the last snapshot are otherwise never passed on.
+   */
+  void flush() {
+    this.applyPending();
+
+    // Removals first, then changes to shapes that stay, then added shapes in the order added
+    List<SceneShape> added = new ArrayList<>();
+    for (Partition partition : this.partitions) {
+      for (SceneShape shape : partition.touched) {
+        if (shape.inAlbum && (!shape.live || shape.addedAt >= 0)) {
+          this.next.remove(shape.id, shape.name);
+        } else if (shape.live && shape.addedAt < 0) {
+          shape.passChangesTo(this.next);
+        }
+        if (shape.live && shape.addedAt >= 0) {
+          added.add(shape);
+        }
+      }
+    }
+    added.sort((a, b) -> Long.compare(a.addedAt, b.addedAt));
+    for (SceneShape shape : added) {
+      this.next.shape(shape.type, shape.id, shape.name, shape.x, shape.y, shape.sizeX,
+              shape.sizeY, shape.r, shape.g, shape.b);
+    }
+
+    // The album now matches the partitions
+    for (Partition partition : this.partitions) {
+      for (SceneShape shape : partition.touched) {
+        shape.synced();
+        if (!shape.live) {
+          partition.shapes.remove(shape.name);
+        }
+      }
+      partition.touched.clear();
+    }
+  }
+
+  /**
+   * A helper method that hands a command to the partition of its shape, and lets the partitions
+   * apply what they were handed once enough commands are waiting.
+   * @param command (int) the command, one of the CommandTokenizer constants.
+   * @param type (String) type of the shape, or null if the command is not a shape command.
+   * @param id (int) ID of the name of the shape.
+   * @param name (String) name of the shape.
+   * @param x (int) x-coordinate of the shape's point, if the command has one.
+   * @param y (int) y-coordinate of the shape's point, if the command has one.
+   * @param sizeX (int) horizontal size of the shape, if the command has one.
+   * @param sizeY (int) vertical size of the shape, if the command has one.
+   * @param r (int) intensity of the color red, if the command has one.
+   * @param g (int) intensity of the color green, if the command has one.
+   * @param b (int) intensity of the color blue, if the command has one.
+   */
+  private void hand(int command, String type, int id, String name, int x, int y, int sizeX,
+                    int sizeY, int r, int g, int b) {
+    int partition = (name.hashCode() & Integer.MAX_VALUE) % this.partitions.length;
+    this.partitions[partition].add(command, type, id, name, this.sequence++, x, y, sizeX, sizeY,
+            r, g, b);
+    if (++this.pending == this.chunkSize) {
+      this.applyPending();
+    }
+  }
+
+  /**
+   * A helper method that lets every partition with commands waiting apply them at the same time,
+   * and waits for all of them to finish.
+   */
+  private void applyPending() {
+    if (this.pending == 0) {
+      return;
+    }
+    List<CompletableFuture<Void>> running = new ArrayList<>();
+    for (Partition partition : this.partitions) {
+      if (partition.count > 0) {
+        running.add(CompletableFuture.runAsync(partition::apply, this.pool));
+      }
+    }
+    for (CompletableFuture<Void> each : running) {
+      each.join();
+    }
+    this.pending = 0;
+  }
+
+  /**
+   * A helper method that checks whether the given values make a valid color.
+   * @param r (int) intensity of the color red.
+   * @param g (int) intensity of the color green.
+   * @param b (int) intensity of the color blue.
+   * @return (boolean) true if every intensity is between 0 and 255, inclusive.
+   */
+  private static boolean isColor(int r, int g, int b) {
+    return (r & ~0xFF) == 0 && (g & ~0xFF) == 0 && (b & ~0xFF) == 0;
+  }
+
+  /**
+   * This class represents one partition of the shapes. A Partition has the latest state of its
+   * shapes by name, the shapes touched since the album was last brought up to date, and the
+   * commands handed to it that it has not applied yet. Only the waiting commands are kept in
+   * parallel arrays, one slot per command; the shapes themselves are SceneShape objects. It is
+   * only used by one thread at a time.
+   */
+  private static final class Partition {
+    private static final int STRIDE = 7;
+
+    private final Map<String, SceneShape> shapes;
+    private final List<SceneShape> touched;
+    private byte[] commands;
+    private String[] types;
+    private int[] ids;
+    private String[] names;
+    private long[] sequences;
+    private int[] values;
+    private int count;
+
+    /**
+     * Constructs an empty Partition.
+     */
+    private Partition() {
+      this.shapes = new HashMap<>();
+      this.touched = new ArrayList<>();
+      this.commands = new byte[256];
+      this.types = new String[256];
+      this.ids = new int[256];
+      this.names = new String[256];
+      this.sequences = new long[256];
+      this.values = new int[256 * STRIDE];
+    }
+
+    /**
+     * Adds a command to the end of the commands waiting to be applied.
+     * @param command (int) the command, one of the CommandTokenizer constants.
+     * @param type (String) type of the shape, or null if the command is not a shape command.
+     * @param id (int) ID of the name of the shape.
+     * @param name (String) name of the shape.
+     * @param sequence (long) position of the command among all commands received.
+     * @param x (int) x-coordinate of the shape's point.
+     * @param y (int) y-coordinate of the shape's point.
+     * @param sizeX (int) horizontal size of the shape.
+     * @param sizeY (int) vertical size of the shape.
+     * @param r (int) intensity of the color red.
+     * @param g (int) intensity of the color green.
+     * @param b (int) intensity of the color blue.
+     */
+    private void add(int command, String type, int id, String name, long sequence, int x, int y,
+                     int sizeX, int sizeY, int r, int g, int b) {
+      if (this.count == this.commands.length) {
+        int length = this.count * 2;
+        this.commands = Arrays.copyOf(this.commands, length);
+        this.types = Arrays.copyOf(this.types, length);
+        this.ids = Arrays.copyOf(this.ids, length);
+        this.names = Arrays.copyOf(this.names, length);
+        this.sequences = Arrays.copyOf(this.sequences, length);
+        this.values = Arrays.copyOf(this.values, length * STRIDE);
+      }
+      int i = this.count * STRIDE;
+      this.values[i] = x;
+      this.values[i + 1] = y;
+      this.values[i + 2] = sizeX;
+      this.values[i + 3] = sizeY;
+      this.values[i + 4] = r;
+      this.values[i + 5] = g;
+      this.values[i + 6] = b;
+      this.commands[this.count] = (byte) command;
+      this.types[this.count] = type;
+      this.ids[this.count] = id;
+      this.names[this.count] = name;
+      this.sequences[this.count] = sequence;
+      this.count++;
+    }
+
+    /**
+     * Applies the waiting commands to the shapes of the partition, in order, and forgets them.
+     */
+    private void apply() {
+      for (int c = 0; c < this.count; c++) {
+        int i = c * STRIDE;
+        SceneShape shape = this.shapes.get(this.names[c]);
+        if (this.commands[c] == CommandTokenizer.SHAPE) {
+          if (shape == null) {
+            shape = new SceneShape(this.names[c]);
+            this.shapes.put(shape.name, shape);
+          }
+
+          // A name that is taken is not added again
+          if (!shape.live) {
+            this.touch(shape);
+            shape.add(this.types[c], this.ids[c], this.sequences[c], this.values, i);
+          }
+        } else if (shape != null && shape.live) {
+          this.touch(shape);
+          shape.change(this.commands[c], this.values, i);
+        }
+        this.names[c] = null;
+        this.types[c] = null;
+      }
+      this.count = 0;
+    }
+
+    /**
+     * Records that the given shape changed since the album was last brought up to date.
+     * @param shape (SceneShape) the shape.
+     */
+    private void touch(SceneShape shape) {
+      if (!shape.touched) {
+        shape.touched = true;
+        this.touched.add(shape);
+      }
+    }
+  }
+
+  /**
+   * This class represents the latest state of one shape. A SceneShape has the values of the
+   * command that would add the shape as it is now (its shape ID included), whether it is in the
+   * album now and was when the album was last brought up to date, when it was added since then (if
+   * it was), and which of its values changed since then.
+   */
+  private static final class SceneShape {
+    private final String name;
+    private String type;
+    private int id;
+    private int x;
+    private int y;
+    private int sizeX;
+    private int sizeY;
+    private int r;
+    private int g;
+    private int b;
+    private boolean live;
+    private boolean inAlbum;
+    private long addedAt;
+    private boolean moved;
+    private boolean resized;
+    private boolean colored;
+    private boolean touched;
+
+    /**
+     * Constructs a SceneShape, not yet added, instantiated to the given name.
+     * @param name (String) name of the shape.
+     */
+    private SceneShape(String name) {
+      this.name = name;
+      this.addedAt = -1;
+    }
+
+    /**
+     * Adds the shape with the given type and values.
+     * @param type (String) type of the shape.
+     * @param id (int) ID of the name of the shape.
+     * @param sequence (long) position of the shape command among all commands received.
+     * @param values (int[]) values of the shape command.
+     * @param i (int) position of the values of the shape command.
+     */
+    private void add(String type, int id, long sequence, int[] values, int i) {
+      this.type = type;
+      this.id = id;
+      this.x = values[i];
+      this.y = values[i + 1];
+      this.sizeX = values[i + 2];
+      this.sizeY = values[i + 3];
+      this.r = values[i + 4];
+      this.g = values[i + 5];
+      this.b = values[i + 6];
+      this.live = true;
+      this.addedAt = sequence;
+      this.moved = false;
+      this.resized = false;
+      this.colored = false;
+    }
+
+    /**
+     * Applies a move, color change, resize, or removal to the shape.
+     * @param command (int) the command, one of the CommandTokenizer constants.
+     * @param values (int[]) values of the command.
+     * @param i (int) position of the values of the command.
+     */
+    private void change(int command, int[] values, int i) {
+      switch (command) {
+        case CommandTokenizer.MOVE:
+          this.x = values[i];
+          this.y = values[i + 1];
+          this.moved = true;
+          break;
+        case CommandTokenizer.RESIZE:
+          this.sizeX = values[i + 2];
+          this.sizeY = values[i + 3];
+          this.resized = true;
+          break;
+        case CommandTokenizer.COLOR:
+          this.r = values[i + 4];
+          this.g = values[i + 5];
+          this.b = values[i + 6];
+          this.colored = true;
+          break;
+        default:
+          this.live = false;
+          this.addedAt = -1;
+          break;
+      }
+    }
+
+    /**
+     * Passes on the changes made to the shape since the album was last brought up to date.
+     * @param sink (CommandSink) the receiver of the changes.
+     */
+    private void passChangesTo(CommandSink sink) {
+      if (this.moved) {
+        sink.move(this.id, this.name, this.x, this.y);
+      }
+      if (this.resized) {
+        sink.resize(this.id, this.name, this.sizeX, this.sizeY);
+      }
+      if (this.colored) {
+        sink.color(this.id, this.name, this.r, this.g, this.b);
+      }
+    }
+
+    /**
+     * Records that the album was brought up to date with the shape.
+     */
+    private void synced() {
+      this.inAlbum = this.live;
+      this.addedAt = -1;
+      this.moved = false;
+      this.resized = false;
+      this.colored = false;
+      this.touched = false;
+    }
+  }
+}
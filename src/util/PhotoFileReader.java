@@ -1,28 +1,115 @@
 package util;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.ForkJoinPool;
 
 import model.IPhotoAlbum;
 import model.IShape;
+import model.ISnapshotStore;
 
 /**
- * This class represents a photo file reader. A photo file reader has a file to read from and a
- * shapes photo album model to update based on contents of the file.
+ * This class represents a photo file reader. A photo file reader has a file to read from, a
+ * shapes photo album model to update based on contents of the file, and the way to load the file.
  */
 public class PhotoFileReader {
+  private static final int BATCH_SIZE = 1024;
+  private static final int LINE_BREAK_READ_SIZE = 4096;
+  private static final int MAPPED_WINDOW_SIZE = 1 << 30;
+
   private File file;
   private IPhotoAlbum model;
+  private LoadMode mode;
+  private File cacheDirectory;
+  private PipelineStats pipelineStats;
+  private ISnapshotStore snapshots;
+  private OptimizingCommandSink optimizer;
+  private PartitionedCommandSink partitioned;
+  private CommandSink sink;
+  private long followPosition;
 
   /**
-   * Constructs a PhotoFileReader instantiated to the given file and shapes photo album model.
+   * Constructs a PhotoFileReader instantiated to the given file and shapes photo album model. The
+   * file is read as a stream.
    * @param file (File) the file to read from.
-   * @param model (IPhotoAlbum) the shapes photo album model to be updated based on contents of file.
+   * @param model (IPhotoAlbum) the shapes photo album model to be updated based on contents of
+   *              file.
    */
   public PhotoFileReader(File file, IPhotoAlbum model) {
+    this(file, model, LoadMode.STREAM);
+  }
+
+  /**
+   * Constructs a PhotoFileReader instantiated to the given file, shapes photo album model, and way
+   * to load the file.
+   * @param file (File) the file to read from.
+   * @param model (IPhotoAlbum) the shapes photo album model to be updated based on contents of
+   *              file.
+   * @param mode (LoadMode) how to load the file (non-null).
+   * @throws IllegalArgumentException if the load mode is null.
+   */
+  public PhotoFileReader(File file, IPhotoAlbum model, LoadMode mode)
+          throws IllegalArgumentException {
+    this(file, model, mode, CommandCompiler.DEFAULT_CACHE_DIRECTORY);
+  }
+
+  /**
+   * Constructs a PhotoFileReader instantiated to the given file, shapes photo album model, way to
+   * load the file, and cache directory (for compiled files, and for index files that cannot go
+   * next to the file).
+   * @param file (File) the file to read from.
+   * @param model (IPhotoAlbum) the shapes photo album model to be updated based on contents of
+   *              file.
+   * @param mode (LoadMode) how to load the file (non-null).
+   * @param cacheDirectory (File) directory cached files go in (non-null).
+   * @throws IllegalArgumentException if the load mode or cache directory is null.
+   */
+  public PhotoFileReader(File file, IPhotoAlbum model, LoadMode mode, File cacheDirectory)
+          throws IllegalArgumentException {
+    this(file, model, mode, cacheDirectory, false);
+  }
+
+  /**
+   * Constructs a PhotoFileReader instantiated to the given file, shapes photo album model, way to
+   * load the file, cache directory (for compiled files, and for index files that cannot go next
+   * to the file), and whether to leave out commands that make no difference to any snapshot
+   * before they get to the model. Leaving them out is worth it for generated files that change
+   * the same shapes many times between snapshots. It is not done for LoadMode.INDEXED.
+   * @param file (File) the file to read from.
+   * @param model (IPhotoAlbum) the empty shapes photo album model to be updated based on contents
+   *              of file.
+   * @param mode (LoadMode) how to load the file (non-null).
+   * @param cacheDirectory (File) directory cached files go in (non-null).
+   * @param optimize (boolean) whether to leave out commands that make no difference.
+   * @throws IllegalArgumentException if the load mode or cache directory is null.
+   */
+  public PhotoFileReader(File file, IPhotoAlbum model, LoadMode mode, File cacheDirectory,
+                         boolean optimize) throws IllegalArgumentException {
+    if (mode == null || cacheDirectory == null) {
+      throw new IllegalArgumentException("Load mode and cache directory cannot be null!");
+    }
     this.file = file;
     this.model = model;
+    this.mode = mode;
+    this.cacheDirectory = cacheDirectory;
+
+    // Parsed commands go through each stage asked for on their way to the model
+    this.sink = new AlbumCommandSink(model);
+    if (mode == LoadMode.PARTITIONED) {
+      this.partitioned = new PartitionedCommandSink(this.sink, ForkJoinPool.commonPool(),
+              PartitionedCommandSink.DEFAULT_CHUNK_SIZE);
+      this.sink = this.partitioned;
+    }
+    if (optimize) {
+      this.optimizer = new OptimizingCommandSink(this.sink);
+      this.sink = this.optimizer;
+    }
   }
 
   /**
@@ -30,72 +117,214 @@ public class PhotoFileReader {
    */
   public void parsePhotoFile() {
     try {
-      // Create Scanner to read data from given file
-      Scanner scanner = new Scanner(this.file);
+      if (this.mode == LoadMode.INDEXED) {
+        this.snapshots = SnapshotIndex.open(this.file, this.model, this.cacheDirectory,
+                SnapshotIndex.DEFAULT_CHECKPOINT_INTERVAL);
+      } else if (this.mode == LoadMode.COMPILED) {
+        new CommandCompiler(this.cacheDirectory).load(this.file, this.sink);
+      } else if (this.mode == LoadMode.PIPELINED) {
+        try (InputStream in = new FileInputStream(this.file)) {
+          PipelinedFileParser parser = new PipelinedFileParser(in,
+                  PipelinedFileParser.DEFAULT_BATCH_SIZE,
+                  PipelinedFileParser.DEFAULT_QUEUE_CAPACITY);
+          this.pipelineStats = parser.getStats();
+          parser.parseInto(this.sink);
+        }
+      } else if (this.mode == LoadMode.PARALLEL || this.mode == LoadMode.PARTITIONED) {
+        try (FileChannel channel = FileChannel.open(this.file.toPath())) {
+          new ParallelFileParser(channel, ForkJoinPool.commonPool()).parseInto(this.sink);
+        }
+      } else if (this.mode == LoadMode.MEMORY_MAPPED) {
+        try (FileChannel channel = FileChannel.open(this.file.toPath())) {
+          this.parse(new CommandTokenizer(channel));
+        }
+      } else {
+        try (InputStream in = new FileInputStream(this.file)) {
+          this.parse(new CommandTokenizer(in));
+        }
+      }
+      this.flush();
+    } catch (FileNotFoundException | NoSuchFileException e) {
+      System.out.println("Could not find input file!");
+      System.exit(1);
+    } catch (IOException e) {
+      System.out.println("Could not read input file!");
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Reads the lines appended to the file since the last call and updates the model based on them
+   * only, so that a file another program keeps adding commands to can be followed without reading
+   * it again from the start. The first call reads the whole file. Only lines that end in a line
+   * break are read, since the last line may still be being written; it is read by a later call
+   * once it is complete. Lines are read by mapping them into memory, whatever the load mode.
+   * @return (boolean) true if any lines were read, false if no complete line was appended.
+   * @throws IOException if the file cannot be read, or got shorter since the last call.
+   */
+  public boolean readAppended() throws IOException {
+    try (FileChannel channel = FileChannel.open(this.file.toPath())) {
+      long size = channel.size();
+      if (size < this.followPosition) {
+        throw new IOException("Input file got shorter while being followed!");
+      }
+      long end = this.lineEnd(channel, this.followPosition, size);
+      if (end == this.followPosition) {
+        return false;
+      }
+      try {
+        this.parse(new CommandTokenizer(channel, this.followPosition, end, MAPPED_WINDOW_SIZE));
+        this.flush();
+      } finally {
+        // Never apply the same lines twice, even if one of them could not be parsed
+        this.followPosition = end;
+      }
+      return true;
+    }
+  }
 
-      // Read line by line and split by any whitespace
-      while (scanner.hasNextLine()) {
-        String inputLine = scanner.nextLine();
+  /**
+   * Returns the snapshots taken by the file. After a load with LoadMode.INDEXED these are built
+   * from the file when they are looked at instead of being in the model, and the model only has
+   * the shapes at the end of the file.
+   * @return (ISnapshotStore) the snapshots of the file.
+   */
+  public ISnapshotStore getSnapshotStore() {
+    return this.snapshots != null ? this.snapshots : this.model.getSnapshotStore();
+  }
+
+  /**
+   * Returns how full the queue between reading and applying commands was during the last
+   * pipelined load, to show which of the two was slower.
+   * @return (PipelineStats) occupancy of the queue, or null if the file was not loaded with
+   *         LoadMode.PIPELINED.
+   */
+  public PipelineStats getPipelineStats() {
+    return this.pipelineStats;
+  }
 
-        // Remove any leading spaces
-        inputLine = inputLine.trim();
+  /**
+   * A helper method that updates the model with every line of the file.
+   * @param tokenizer (CommandTokenizer) the tokenizer reading the file.
+   * @throws IOException if the file cannot be read.
+   */
+  private void parse(CommandTokenizer tokenizer) throws IOException {
+    if (this.optimizer != null || this.partitioned != null) {
+      this.parseBatched(tokenizer);
+      return;
+    }
 
-        // Split each line by any whitespaces
-        String[] tokens = inputLine.split("\\s+");
+    // Read line by line, splitting each line by any whitespace as it is read
+    while (tokenizer.nextLine()) {
+      // Update the model based on the file contents
+      this.updateModel(tokenizer);
+    }
+  }
 
-        // Update the model based on the file contents
-        this.updateModel(tokens);
+  /**
+   * A helper method that returns the position right after the last line break in the given part
+   * of the file, looking backwards from its end.
+   * @param channel (FileChannel) the open file.
+   * @param start (long) position in the file where the part starts.
+   * @param end (long) position in the file where the part ends.
+   * @return (long) position right after the last \n or \r, or start if there is none.
+   * @throws IOException if the file cannot be read.
+   */
+  private long lineEnd(FileChannel channel, long start, long end) throws IOException {
+    ByteBuffer bytes = ByteBuffer.allocate(LINE_BREAK_READ_SIZE);
+    long next = end;
+    while (next > start) {
+      int length = (int) Math.min(LINE_BREAK_READ_SIZE, next - start);
+      bytes.clear().limit(length);
+      long from = next - length;
+      while (bytes.hasRemaining()) {
+        if (channel.read(bytes, from + bytes.position()) < 0) {
+          throw new IOException("Input file got shorter while being followed!");
+        }
       }
-      scanner.close();
-    } catch (FileNotFoundException e) {
-      System.out.println("Could not find input file!");
-      System.exit(1);
+      for (int i = length - 1; i >= 0; i--) {
+        byte b = bytes.get(i);
+        if (b == '\n' || b == '\r') {
+          return from + i + 1;
+        }
+      }
+      next = from;
     }
+    return start;
   }
 
   /**
-   * A helper method that updates the model based on the parsed file.
-   * @param tokens (String[]) the contents of the parsed file.
+   * A helper method that passes every line of the file through the stages on the way to the
+   * model, in batches of parsed commands. The stages must be flushed afterwards.
+   * @param tokenizer (CommandTokenizer) the tokenizer reading the file.
+   * @throws IOException if the file cannot be read.
    */
-  private void updateModel(String[] tokens) {
-    switch (tokens[0].toLowerCase()) {
+  private void parseBatched(CommandTokenizer tokenizer) throws IOException {
+    ShapeIDMap ids = new ShapeIDMap(this.sink);
+    CommandBatch batch = new CommandBatch();
+    while (tokenizer.nextLine()) {
+      batch.add(tokenizer);
+      if (batch.size() == BATCH_SIZE) {
+        batch.replay(this.sink, ids);
+        batch = new CommandBatch();
+      }
+    }
+    batch.replay(this.sink, ids);
+  }
+
+  /**
+   * A helper method that passes on the commands the stages on the way to the model are holding
+   * back.
+   */
+  private void flush() {
+    if (this.optimizer != null) {
+      this.optimizer.flush();
+    }
+    if (this.partitioned != null) {
+      this.partitioned.flush();
+    }
+  }
+
+  /**
+   * A helper method that updates the model based on the current line of the parsed file.
+   * @param tokens (CommandTokenizer) the tokenizer positioned at the line to be applied.
+   */
+  private void updateModel(CommandTokenizer tokens) {
+    switch (tokens.command()) {
       // Creates new shape and adds to model
-      case "shape":
-        IShape shape = this.model.createShape(tokens[2], tokens[1], Integer.parseInt(tokens[3]),
-                Integer.parseInt(tokens[4]), Integer.parseInt(tokens[5]),
-                Integer.parseInt(tokens[6]), Integer.parseInt(tokens[7]),
-                Integer.parseInt(tokens[8]), Integer.parseInt(tokens[9]));
+      case CommandTokenizer.SHAPE:
+        IShape shape = this.model.createShape(tokens.name(2), tokens.name(1), tokens.intValue(3),
+                tokens.intValue(4), tokens.intValue(5), tokens.intValue(6), tokens.intValue(7),
+                tokens.intValue(8), tokens.intValue(9));
         this.model.addShape(shape);
         break;
 
       // Moves given shape to new x,y location
-      case "move":
-        this.model.moveShape(tokens[1], Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]));
+      case CommandTokenizer.MOVE:
+        this.model.moveShape(tokens.shapeID(1, this.model), tokens.intValue(2),
+                tokens.intValue(3));
         break;
 
       // Changes color of given shape
-      case "color":
-        this.model.changeShapeColor(tokens[1], Integer.parseInt(tokens[2]),
-                Integer.parseInt(tokens[3]), Integer.parseInt(tokens[4]));
+      case CommandTokenizer.COLOR:
+        this.model.changeShapeColor(tokens.shapeID(1, this.model), tokens.intValue(2),
+                tokens.intValue(3), tokens.intValue(4));
         break;
 
       // Changes size of given shape
-      case "resize":
-        this.model.setShapeSize(tokens[1], Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]));
+      case CommandTokenizer.RESIZE:
+        this.model.setShapeSize(tokens.shapeID(1, this.model), tokens.intValue(2),
+                tokens.intValue(3));
         break;
 
       // Removes given shape
-      case "remove":
-        this.model.removeShape(tokens[1]);
+      case CommandTokenizer.REMOVE:
+        this.model.removeShape(tokens.shapeID(1, this.model));
         break;
 
       // Takes a snapshot of the model
-      case "snapshot":
-        String description = "";
-        for (int i = 1; i < tokens.length; i++) {
-          description += tokens[i] + " ";
-        }
-        this.model.takeSnapshot(description);
+      case CommandTokenizer.SNAPSHOT:
+        this.model.takeSnapshot(tokens.rest(1));
         break;
 
       default:
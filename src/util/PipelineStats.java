@@ -0,0 +1,113 @@
+package util;
+
+/**
+ * This class represents how full the queue between the two stages of a pipelined load was. A
+ * PipelineStats counts the batches passed through the queue, how many batches were waiting each
+ * time the applying stage took one, and how often either stage had to wait for the other. A
+ * queue that is mostly empty means reading and tokenizing is the slower stage, and a queue that
+ * is mostly full means applying commands to the model is.
+ */
+public class PipelineStats {
+  private final int capacity;
+  private long batches;
+  private long totalOccupancy;
+  private int maxOccupancy;
+  private long readerWaits;
+  private long applierWaits;
+
+  /**
+   * Constructs an empty PipelineStats instantiated to the given queue capacity.
+   * @param capacity (int) most batches the queue can hold.
+   */
+  PipelineStats(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Records that the applying stage took a batch while the given number of batches were waiting
+   * in the queue (the taken one included).
+   * @param occupancy (int) number of batches in the queue.
+   */
+  synchronized void recordTake(int occupancy) {
+    this.batches++;
+    this.totalOccupancy += occupancy;
+    this.maxOccupancy = Math.max(this.maxOccupancy, occupancy);
+  }
+
+  /**
+   * Records that the reading stage found the queue full and had to wait.
+   */
+  synchronized void recordReaderWait() {
+    this.readerWaits++;
+  }
+
+  /**
+   * Records that the applying stage found the queue empty and had to wait.
+   */
+  synchronized void recordApplierWait() {
+    this.applierWaits++;
+  }
+
+  /**
+   * Returns the most batches the queue can hold.
+   * @return (int) capacity of the queue.
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Returns the number of batches passed through the queue.
+   * @return (long) number of batches.
+   */
+  public synchronized long getBatches() {
+    return this.batches;
+  }
+
+  /**
+   * Returns the average number of batches waiting in the queue when the applying stage took one.
+   * @return (double) average occupancy of the queue, 0 if no batches were passed.
+   */
+  public synchronized double getAverageOccupancy() {
+    return this.batches == 0 ? 0 : (double) this.totalOccupancy / this.batches;
+  }
+
+  /**
+   * Returns the most batches that were waiting in the queue when the applying stage took one.
+   * @return (int) highest occupancy of the queue.
+   */
+  public synchronized int getMaxOccupancy() {
+    return this.maxOccupancy;
+  }
+
+  /**
+   * Returns how many times the reading stage found the queue full and had to wait.
+   * @return (long) number of waits by the reading stage.
+   */
+  public synchronized long getReaderWaits() {
+    return this.readerWaits;
+  }
+
+  /**
+   * Returns how many times the applying stage found the queue empty and had to wait.
+   * @return (long) number of waits by the applying stage.
+   */
+  public synchronized long getApplierWaits() {
+    return this.applierWaits;
+  }
+
+  /**
+   * Returns a String representation of this PipelineStats. Formatted as: batches, average and
+   * highest occupancy out of the capacity, waits by each stage, and the slower stage.
+   * @return (String) represents the queue occupancy of the load.
+   */
+  @Override
+  public synchronized String toString() {
+    String slower = this.readerWaits > this.applierWaits ? "applying"
+            : this.applierWaits > this.readerWaits ? "reading" : "neither";
+    return String.format("Batches: %d, Average occupancy: %.2f/%d, Max occupancy: %d/%d, "
+            + "Reader waits: %d, Applier waits: %d, Slower stage: %s", this.batches,
+            this.getAverageOccupancy(), this.capacity, this.maxOccupancy, this.capacity,
+            this.readerWaits, this.applierWaits, slower);
+  }
+}
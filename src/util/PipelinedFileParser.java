@@ -0,0 +1,136 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class represents a parser that reads a command file and applies it to a photo album at the
+ * same time. A PipelinedFileParser reads and tokenizes the file on a background thread into
+ * batches of commands, and hands them through a bounded queue to the thread applying them to the
+ * photo album. Reading, tokenizing, and changing the model (snapshots included) then overlap
+ * instead of taking turns, and the queue keeps the reader from running too far ahead.
+ */
+final class PipelinedFileParser {
+  static final int DEFAULT_BATCH_SIZE = 1024;
+  static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+  private final InputStream in;
+  private final int batchSize;
+  private final BlockingQueue<CommandBatch> queue;
+  private final PipelineStats stats;
+  private volatile Exception readError;
+
+  /**
+   * Constructs a PipelinedFileParser instantiated to the given stream of command file bytes, the
+   * number of commands per batch, and the most batches the queue can hold.
+   * @param in (InputStream) the stream to read commands from.
+   * @param batchSize (int) number of commands handed over at a time (positive).
+   * @param queueCapacity (int) most batches waiting to be applied at a time (positive).
+   * @throws IllegalArgumentException if the batch size or queue capacity is not positive.
+   */
+  PipelinedFileParser(InputStream in, int batchSize, int queueCapacity)
+          throws IllegalArgumentException {
+    if (batchSize <= 0 || queueCapacity <= 0) {
+      throw new IllegalArgumentException("Batch size and queue capacity must be positive!");
+    }
+    this.in = in;
+    this.batchSize = batchSize;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.stats = new PipelineStats(queueCapacity);
+  }
+
+  /**
+   * Returns how full the queue between reading and applying was.
+   * @return (PipelineStats) occupancy of the queue so far.
+   */
+  PipelineStats getStats() {
+    return this.stats;
+  }
+
+  /**
+   * Parses the whole stream on a background thread and passes its commands to the given receiver
+   * on this thread, in order.
+   * @param sink (CommandSink) the receiver of the commands, such as a photo album.
+   * @throws IOException if the stream cannot be read.
+   */
+  void parseInto(CommandSink sink) throws IOException {
+    Thread reader = new Thread(this::read, "command-file-reader");
+    reader.setDaemon(true);
+    reader.start();
+    try {
+      // Every batch comes from the same tokenizer, so they share one map of its names
+      ShapeIDMap ids = new ShapeIDMap(sink);
+
+      // An empty batch marks the end of the file
+      while (true) {
+        CommandBatch batch = this.queue.poll();
+        int occupancy = this.queue.size() + 1;
+        if (batch == null) {
+          this.stats.recordApplierWait();
+          batch = this.queue.take();
+          occupancy = 1;
+        }
+        if (batch.size() == 0) {
+          break;
+        }
+        this.stats.recordTake(occupancy);
+        batch.replay(sink, ids);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while loading input file!", e);
+    } finally {
+      // Stop the reader if applying failed part way
+      reader.interrupt();
+    }
+    if (this.readError instanceof IOException) {
+      throw (IOException) this.readError;
+    } else if (this.readError != null) {
+      throw (RuntimeException) this.readError;
+    }
+  }
+
+  /**
+   * A helper method that reads and tokenizes the stream into batches and puts them in the queue,
+   * followed by an empty batch. Runs on the background thread.
+   */
+  private void read() {
+    try {
+      CommandTokenizer tokens = new CommandTokenizer(this.in);
+      CommandBatch batch = new CommandBatch();
+      while (tokens.nextLine()) {
+        batch.add(tokens);
+        if (batch.size() == this.batchSize) {
+          this.put(batch);
+          batch = new CommandBatch();
+        }
+      }
+      if (batch.size() > 0) {
+        this.put(batch);
+      }
+    } catch (IOException | RuntimeException e) {
+      this.readError = e;
+    } catch (InterruptedException e) {
+      return;
+    }
+    try {
+      this.put(new CommandBatch());
+    } catch (InterruptedException e) {
+      return;
+    }
+  }
+
+  /**
+   * A helper method that puts the given batch in the queue, waiting for room if it is full.
+   * @param batch (CommandBatch) the batch to be applied.
+   * @throws InterruptedException if the applying stage stopped while waiting.
+   */
+  private void put(CommandBatch batch) throws InterruptedException {
+    if (!this.queue.offer(batch)) {
+      this.stats.recordReaderWait();
+      this.queue.put(batch);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the shape IDs of the names from one source of commands, such as the name
+ * table of one tokenizer or the names of one compiled file. Each source gives its names dense IDs
+ * of its own (0, 1, 2, and so on), and a ShapeIDMap maps those to the IDs a receiver of commands
+ * gives the names, asking the receiver only the first time a name is seen. Commands on a name seen
+ * before cost an array lookup instead of hashing the name.
+ */
+final class ShapeIDMap {
+  private static final int UNRESOLVED = -2;
+
+  private final CommandSink sink;
+  private int[] ids;
+
+  /**
+   * Constructs an empty ShapeIDMap instantiated to the receiver that gives the IDs.
+   * @param sink (CommandSink) the receiver the commands are passed to.
+   */
+  ShapeIDMap(CommandSink sink) {
+    this.sink = sink;
+    this.ids = new int[64];
+    Arrays.fill(this.ids, UNRESOLVED);
+  }
+
+  /**
+   * Returns the ID the receiver gives the name with the given ID in the source. A name the
+   * receiver does not know is asked about again once a shape command is about to add it.
+   * @param nameID (int) ID of the name in the source (non-negative).
+   * @param name (String) the name.
+   * @param adding (boolean) whether the name is about to be added by a shape command.
+   * @return (int) ID of the name given by the receiver, or -1 if it has none.
+   */
+  int shapeID(int nameID, String name, boolean adding) {
+    if (nameID >= this.ids.length) {
+      int length = this.ids.length;
+      this.ids = Arrays.copyOf(this.ids, Math.max(nameID + 1, length * 2));
+      Arrays.fill(this.ids, length, this.ids.length, UNRESOLVED);
+    }
+    int id = this.ids[nameID];
+    if (id == UNRESOLVED || (id < 0 && adding)) {
+      id = this.sink.shapeID(name, adding);
+      this.ids[nameID] = id;
+    }
+    return id;
+  }
+}
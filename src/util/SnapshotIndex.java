@@ -0,0 +1,640 @@
+package util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.IPhotoAlbum;
+import model.IShape;
+import model.ISnapshotStore;
+import model.ShapesPhotoAlbumModel;
+import model.Snapshot;
+
+/**
+ * This class represents the snapshots of a command file, built from the file only when they are
+ * asked for. A SnapshotIndex is made by one pass over the file that records where each snapshot
+ * command is and, every few snapshots, a checkpoint of all the shapes at that point, and saves
+ * them to an index file next to the command file, or in the cache directory if the index file
+ * cannot be written there. Opening the same unchanged file again reads the index file instead of
+ * the command file. A snapshot is built by starting from the checkpoint
+ * before it (or from the snapshot built last, if that is closer) and applying the commands between
+ * there and the snapshot, so only the snapshots that are looked at are ever in memory.
+ *
+ * <p>The index file starts with the bytes "SPIX", a version, the size and modification time of
+ * the command file, and the checkpoint interval. The checkpoints follow, each one a compiled
+ * command file (see BinaryCommandWriter) that adds every shape. After them comes the table of
+ * snapshots (position in the command file, ID, and description), the positions of the
+ * checkpoints, and the position of the checkpoint at the end of the file. The last 8 bytes are the
+ * position of that table.
+ */
+final class SnapshotIndex implements ISnapshotStore {
+  static final String INDEX_SUFFIX = ".index";
+  static final int DEFAULT_CHECKPOINT_INTERVAL = 64;
+
+  private static final byte[] MAGIC = {'S', 'P', 'I', 'X'};
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 28;
+  private static final int CACHE_SIZE = 16;
+  private static final int BATCH_SIZE = 1024;
+  private static final int MAPPED_WINDOW_SIZE = 1 << 30;
+
+  private final File file;
+  private final File cacheDirectory;
+  private File indexFile;
+  private final int checkpointInterval;
+  private final Map<String, Integer> indexByID;
+  private final Map<Integer, Snapshot> cache;
+  private long[] offsets;
+  private String[] ids;
+  private String[] descriptions;
+  private int count;
+  private long[] checkpoints;
+  private int checkpointCount;
+  private long lastCheckpoint;
+  private IPhotoAlbum replayModel;
+  private int replayIndex;
+
+  /**
+   * Constructs an empty SnapshotIndex instantiated to the given command file, cache directory,
+   * and checkpoint interval.
+   * @param file (File) the command file.
+   * @param cacheDirectory (File) directory the index file goes in if it cannot go next to the
+   *                       command file.
+   * @param checkpointInterval (int) number of snapshots between two checkpoints (at least 1).
+   * @throws IllegalArgumentException if the checkpoint interval is less than 1.
+   */
+  private SnapshotIndex(File file, File cacheDirectory, int checkpointInterval)
+          throws IllegalArgumentException {
+    if (checkpointInterval < 1) {
+      throw new IllegalArgumentException("Checkpoint interval must be at least 1!");
+    }
+    this.file = file;
+    this.cacheDirectory = cacheDirectory;
+    this.indexFile = new File(file.getPath() + INDEX_SUFFIX);
+    this.checkpointInterval = checkpointInterval;
+    this.indexByID = new HashMap<>();
+    this.offsets = new long[16];
+    this.ids = new String[16];
+    this.descriptions = new String[16];
+    this.checkpoints = new long[16];
+
+    // Access ordered map that drops the least recently used snapshot once the cache is full
+    this.cache = new LinkedHashMap<Integer, Snapshot>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, Snapshot> eldest) {
+        return this.size() > CACHE_SIZE;
+      }
+    };
+  }
+
+  /**
+   * Opens the snapshots of the given command file, reading its index file if it is up to date
+   * and indexing the file (and saving the index file) otherwise. The index file is looked for
+   * next to the command file first, and then in the given cache directory, where it is saved
+   * when the directory of the command file cannot be written to. The given photo album is left
+   * with the shapes at the end of the file, but without any snapshots.
+   * @param file (File) the command file.
+   * @param model (IPhotoAlbum) the empty photo album to be updated.
+   * @param cacheDirectory (File) directory the index file goes in if it cannot go next to the
+   *                       command file.
+   * @param checkpointInterval (int) number of snapshots between two checkpoints (at least 1).
+   * @return (SnapshotIndex) the snapshots of the file.
+   * @throws IOException if the command file cannot be read, or the index file cannot be written
+   *                     in either place.
+   * @throws IllegalArgumentException if the checkpoint interval is less than 1.
+   */
+  static SnapshotIndex open(File file, IPhotoAlbum model, File cacheDirectory,
+                            int checkpointInterval) throws IOException, IllegalArgumentException {
+    SnapshotIndex index = new SnapshotIndex(file, cacheDirectory, checkpointInterval);
+    File besideFile = index.indexFile;
+    boolean found = index.read();
+    if (!found) {
+      index.indexFile = index.cachedIndexFile();
+      found = index.read();
+    }
+    if (found) {
+      index.restore(index.lastCheckpoint, new AlbumCommandSink(model));
+    } else {
+      index.indexFile = besideFile;
+      index.build(model);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the snapshot at the given position, building it from the command file if it is not
+   * cached.
+   * @param index (int) position of the snapshot, starting from 0.
+   * @return (Snapshot) the snapshot at the given position.
+   * @throws IndexOutOfBoundsException if there is no snapshot at the given position.
+   * @throws UncheckedIOException if the command file or index file cannot be read.
+   */
+  @Override
+  public synchronized Snapshot get(int index) throws IndexOutOfBoundsException,
+          UncheckedIOException {
+    this.checkIndex(index);
+    Snapshot snapshot = this.cache.get(index);
+    if (snapshot == null) {
+      try {
+        snapshot = this.build(index);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      this.cache.put(index, snapshot);
+    }
+    return snapshot;
+  }
+
+  @Override
+  public synchronized Snapshot get(String id) {
+    Integer index = this.indexByID.get(id);
+    return index == null ? null : this.get(index);
+  }
+
+  @Override
+  public synchronized String getID(int index) throws IndexOutOfBoundsException {
+    this.checkIndex(index);
+    return this.ids[index];
+  }
+
+  @Override
+  public synchronized int indexOf(String id) {
+    Integer index = this.indexByID.get(id);
+    return index == null ? -1 : index;
+  }
+
+  @Override
+  public synchronized int size() {
+    return this.count;
+  }
+
+  /**
+   * Returns a read-only list view of the snapshots of the file. The view does not copy anything;
+   * each snapshot is looked up (and built if needed) when it is asked for.
+   * @return (List</Snapshot>) read-only view of all snapshots of the file.
+   */
+  @Override
+  public List<Snapshot> asList() {
+    return new AbstractList<Snapshot>() {
+      @Override
+      public Snapshot get(int index) {
+        return SnapshotIndex.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return SnapshotIndex.this.size();
+      }
+    };
+  }
+
+  /**
+   * A helper method that checks there is a snapshot at the given position.
+   * @param index (int) position of the snapshot.
+   * @throws IndexOutOfBoundsException if there is no snapshot at the given position.
+   */
+  private void checkIndex(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.count) {
+      throw new IndexOutOfBoundsException("No snapshot at index " + index + "!");
+    }
+  }
+
+  /**
+   * A helper method that builds the snapshot at the given position. Carries on from the snapshot
+   * built last if it is between the checkpoint before the snapshot and the snapshot, and starts
+   * from that checkpoint otherwise.
+   * @param index (int) position of the snapshot to build.
+   * @return (Snapshot) the built snapshot.
+   * @throws IOException if the command file or index file cannot be read.
+   */
+  private Snapshot build(int index) throws IOException {
+    int checkpoint = index / this.checkpointInterval;
+    int checkpointIndex = checkpoint * this.checkpointInterval;
+    if (this.replayModel == null || this.replayIndex > index
+            || this.replayIndex < checkpointIndex) {
+      this.replayModel = null;
+      IPhotoAlbum model = new ShapesPhotoAlbumModel();
+      this.restore(this.checkpoints[checkpoint], new AlbumCommandSink(model));
+      this.replayModel = model;
+      this.replayIndex = checkpointIndex;
+    }
+
+    // Apply the commands between the two snapshot commands, skipping any snapshots in between
+    try (FileChannel channel = FileChannel.open(this.file.toPath())) {
+      CommandTokenizer tokens = new CommandTokenizer(channel, this.offsets[this.replayIndex],
+              this.offsets[index], MAPPED_WINDOW_SIZE);
+      CommandSink sink = new AlbumCommandSink(this.replayModel);
+      ShapeIDMap shapeIDs = new ShapeIDMap(sink);
+      CommandBatch batch = new CommandBatch();
+      while (tokens.nextLine()) {
+        if (tokens.command() != CommandTokenizer.SNAPSHOT) {
+          batch.add(tokens);
+        }
+        if (batch.size() == BATCH_SIZE) {
+          batch.replay(sink, shapeIDs);
+          batch = new CommandBatch();
+        }
+      }
+      batch.replay(sink, shapeIDs);
+    } catch (IOException | RuntimeException e) {
+      // The model is part way between two snapshots, so it cannot be carried on from
+      this.replayModel = null;
+      throw e;
+    }
+    this.replayIndex = index;
+
+    // The snapshot copies the shapes, so they are read without copying them first
+    return new Snapshot(this.ids[index], this.descriptions[index],
+            new ArrayList<>(this.replayModel.getShapesView()));
+  }
+
+  /**
+   * A helper method that passes the shapes in the checkpoint at the given position of the index
+   * file to the given receiver.
+   * @param position (long) position of the checkpoint in the index file.
+   * @param sink (CommandSink) the receiver of the shapes.
+   * @throws IOException if the index file cannot be read or is damaged.
+   */
+  private void restore(long position, CommandSink sink) throws IOException {
+    try (FileChannel channel = FileChannel.open(this.indexFile.toPath())) {
+      channel.position(position);
+      BinaryCommandReader reader = new BinaryCommandReader(Channels.newInputStream(channel));
+      if (!reader.readHeader()) {
+        throw new IOException("Snapshot index is damaged!");
+      }
+      reader.replay(sink);
+    }
+  }
+
+  /**
+   * A helper method that reads the index file, if there is one for the current contents of the
+   * command file.
+   * @return (boolean) true if the index file was read, false if it is missing, out of date, or
+   *         damaged.
+   */
+  private boolean read() {
+    if (!this.indexFile.isFile() || !this.file.isFile()) {
+      return false;
+    }
+    try (FileChannel channel = FileChannel.open(this.indexFile.toPath())) {
+      DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION
+              || in.readLong() != this.file.length() || in.readLong() != this.file.lastModified()
+              || in.readInt() != this.checkpointInterval) {
+        return false;
+      }
+
+      // The position of the table is at the very end
+      ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+      channel.read(trailer, channel.size() - Long.BYTES);
+      channel.position(trailer.flip().getLong());
+      in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+      int snapshots = in.readInt();
+      for (int i = 0; i < snapshots; i++) {
+        this.addSnapshot(in.readLong(), readString(in), readString(in));
+      }
+      int checkpointTotal = in.readInt();
+      for (int i = 0; i < checkpointTotal; i++) {
+        this.addCheckpoint(in.readLong());
+      }
+      this.lastCheckpoint = in.readLong();
+      return true;
+    } catch (IOException | RuntimeException e) {
+      // Index again instead of trusting a damaged index file
+      this.count = 0;
+      this.checkpointCount = 0;
+      this.indexByID.clear();
+      return false;
+    }
+  }
+
+  /**
+   * A helper method that makes one pass over the command file to index it and saves the index
+   * file. Every command other than snapshot is applied to the given photo album, and the shapes
+   * are also kept as commands, so that checkpoints can be written as compiled commands.
+   * @param model (IPhotoAlbum) the empty photo album to be updated.
+   * @throws IOException if the command file cannot be read, or the index file cannot be written
+   *                     in either place.
+   */
+  private void build(IPhotoAlbum model) throws IOException {
+    File directory = this.indexFile.getAbsoluteFile().getParentFile();
+    File temporary;
+    try {
+      temporary = File.createTempFile(this.indexFile.getName(), ".tmp", directory);
+    } catch (IOException e) {
+      // Directory of the command file cannot be written to
+      this.indexFile = this.cachedIndexFile();
+      Files.createDirectories(this.cacheDirectory.toPath());
+      temporary = File.createTempFile(this.indexFile.getName(), ".tmp", this.cacheDirectory);
+    }
+    boolean complete = false;
+    try (FileChannel channel = FileChannel.open(this.file.toPath());
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                 new FileOutputStream(temporary)))) {
+      long size = channel.size();
+      out.write(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(size);
+      out.writeLong(this.file.lastModified());
+      out.writeInt(this.checkpointInterval);
+
+      long position = HEADER_SIZE;
+      Map<String, ShapeRecord> shapes = new LinkedHashMap<>();
+      LocalDateTime lastID = LocalDateTime.MIN;
+      CommandTokenizer tokens = new CommandTokenizer(channel, 0, size, MAPPED_WINDOW_SIZE);
+      while (tokens.nextLine()) {
+        if (tokens.command() == CommandTokenizer.SNAPSHOT) {
+          if (this.count % this.checkpointInterval == 0) {
+            this.addCheckpoint(position);
+            position += writeCheckpoint(out, shapes);
+          }
+
+          // Snapshots indexed within the same clock tick still get IDs of their own
+          LocalDateTime id = LocalDateTime.now();
+          lastID = id.isAfter(lastID) ? id : lastID.plusNanos(1);
+          this.addSnapshot(tokens.lineStart(), lastID.toString(), tokens.rest(1));
+        } else {
+          apply(tokens, model, shapes);
+        }
+      }
+      this.lastCheckpoint = position;
+      position += writeCheckpoint(out, shapes);
+
+      // Table of snapshots and checkpoints, and where it starts
+      out.writeInt(this.count);
+      for (int i = 0; i < this.count; i++) {
+        out.writeLong(this.offsets[i]);
+        writeString(out, this.ids[i]);
+        writeString(out, this.descriptions[i]);
+      }
+      out.writeInt(this.checkpointCount);
+      for (int i = 0; i < this.checkpointCount; i++) {
+        out.writeLong(this.checkpoints[i]);
+      }
+      out.writeLong(this.lastCheckpoint);
+      out.writeLong(position);
+      complete = true;
+    } finally {
+      if (!complete) {
+        Files.deleteIfExists(temporary.toPath());
+      }
+    }
+    this.save(temporary);
+  }
+
+  /**
+   * A helper method that puts the given complete index file in place. If it cannot replace the
+   * index file next to the command file, it goes in the cache directory instead, where it may
+   * have to be copied first since the two may be on different file systems.
+   * @param temporary (File) the complete index file.
+   * @throws IOException if the index file cannot be put in either place.
+   */
+  private void save(File temporary) throws IOException {
+    File cached = this.cachedIndexFile();
+    try {
+      Files.move(temporary.toPath(), this.indexFile.toPath(),
+              StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      return;
+    } catch (IOException e) {
+      if (this.indexFile.equals(cached)) {
+        Files.deleteIfExists(temporary.toPath());
+        throw e;
+      }
+    }
+
+    File moved = null;
+    try {
+      Files.createDirectories(this.cacheDirectory.toPath());
+      moved = File.createTempFile(cached.getName(), ".tmp", this.cacheDirectory);
+      Files.move(temporary.toPath(), moved.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      Files.move(moved.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+      this.indexFile = cached;
+    } finally {
+      Files.deleteIfExists(temporary.toPath());
+      if (moved != null) {
+        Files.deleteIfExists(moved.toPath());
+      }
+    }
+  }
+
+  /**
+   * A helper method that returns where the index file goes in the cache directory. The name has
+   * a hash of the full path of the command file, so command files with the same name in
+   * different directories do not share an index file.
+   * @return (File) the index file in the cache directory.
+   */
+  private File cachedIndexFile() {
+    String path = this.file.getAbsolutePath();
+    return new File(this.cacheDirectory, this.file.getName() + "-"
+            + Integer.toHexString(path.hashCode()) + INDEX_SUFFIX);
+  }
+
+  /**
+   * A helper method that applies the command on the current line to the given photo album, and
+   * changes the given shape records the same way, so they match the shapes in the album.
+   * @param tokens (CommandTokenizer) the tokenizer positioned at the line to be applied.
+   * @param model (IPhotoAlbum) the photo album to be updated.
+   * @param shapes (Map</String, ShapeRecord>) shapes in the album, by name, in album order.
+   */
+  private static void apply(CommandTokenizer tokens, IPhotoAlbum model,
+                            Map<String, ShapeRecord> shapes) {
+    String name;
+    ShapeRecord shape;
+    switch (tokens.command()) {
+      case CommandTokenizer.SHAPE:
+        String type = tokens.name(2);
+        name = tokens.name(1);
+        shape = new ShapeRecord(type, tokens.intValue(3), tokens.intValue(4), tokens.intValue(5),
+                tokens.intValue(6), tokens.intValue(7), tokens.intValue(8), tokens.intValue(9));
+        IShape created = model.createShape(type, name, shape.x, shape.y, shape.sizeX,
+                shape.sizeY, shape.r, shape.g, shape.b);
+        if (created != null && !shapes.containsKey(name)) {
+          model.addShape(created);
+          shapes.put(name, shape);
+        }
+        break;
+
+      case CommandTokenizer.MOVE:
+        name = tokens.name(1);
+        int x = tokens.intValue(2);
+        int y = tokens.intValue(3);
+        model.moveShape(name, x, y);
+        shape = shapes.get(name);
+        if (shape != null) {
+          shape.x = x;
+          shape.y = y;
+        }
+        break;
+
+      case CommandTokenizer.COLOR:
+        name = tokens.name(1);
+        int r = tokens.intValue(2);
+        int g = tokens.intValue(3);
+        int b = tokens.intValue(4);
+        model.changeShapeColor(name, r, g, b);
+        shape = shapes.get(name);
+        if (shape != null) {
+          shape.r = r;
+          shape.g = g;
+          shape.b = b;
+        }
+        break;
+
+      case CommandTokenizer.RESIZE:
+        name = tokens.name(1);
+        int sizeX = tokens.intValue(2);
+        int sizeY = tokens.intValue(3);
+        model.setShapeSize(name, sizeX, sizeY);
+        shape = shapes.get(name);
+        if (shape != null) {
+          shape.sizeX = sizeX;
+          shape.sizeY = sizeY;
+        }
+        break;
+
+      case CommandTokenizer.REMOVE:
+        name = tokens.name(1);
+        model.removeShape(name);
+        shapes.remove(name);
+        break;
+
+      default:
+        break;
+    }
+  }
+
+  /**
+   * A helper method that writes a checkpoint of the given shapes to the index file.
+   * @param out (DataOutputStream) the index file.
+   * @param shapes (Map</String, ShapeRecord>) shapes at the checkpoint, by name, in album order.
+   * @return (int) number of bytes written.
+   * @throws IOException if the index file cannot be written.
+   */
+  private static int writeCheckpoint(DataOutputStream out, Map<String, ShapeRecord> shapes)
+          throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryCommandWriter writer = new BinaryCommandWriter(bytes);
+    for (Map.Entry<String, ShapeRecord> each : shapes.entrySet()) {
+      ShapeRecord shape = each.getValue();
+      writer.shape(shape.type, -1, each.getKey(), shape.x, shape.y, shape.sizeX, shape.sizeY,
+              shape.r, shape.g, shape.b);
+    }
+    writer.finish();
+    bytes.writeTo(out);
+    return bytes.size();
+  }
+
+  /**
+   * A helper method that adds a snapshot to the end of the index.
+   * @param offset (long) position of the snapshot command in the command file.
+   * @param id (String) the ID of the snapshot.
+   * @param description (String) description associated to the snapshot.
+   */
+  private void addSnapshot(long offset, String id, String description) {
+    if (this.count == this.offsets.length) {
+      this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+      this.ids = Arrays.copyOf(this.ids, this.count * 2);
+      this.descriptions = Arrays.copyOf(this.descriptions, this.count * 2);
+    }
+    this.offsets[this.count] = offset;
+    this.ids[this.count] = id;
+    this.descriptions[this.count] = description;
+    this.indexByID.put(id, this.count);
+    this.count++;
+  }
+
+  /**
+   * A helper method that adds a checkpoint to the end of the index.
+   * @param position (long) position of the checkpoint in the index file.
+   */
+  private void addCheckpoint(long position) {
+    if (this.checkpointCount == this.checkpoints.length) {
+      this.checkpoints = Arrays.copyOf(this.checkpoints, this.checkpointCount * 2);
+    }
+    this.checkpoints[this.checkpointCount++] = position;
+  }
+
+  /**
+   * A helper method that writes a String as its length followed by its UTF-8 bytes.
+   * @param out (DataOutputStream) where the String is written to.
+   * @param s (String) the String.
+   * @throws IOException if the String cannot be written.
+   */
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * A helper method that reads a String written by writeString.
+   * @param in (DataInputStream) where the String is read from.
+   * @return (String) the String.
+   * @throws IOException if the String cannot be read.
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * This class represents a shape as the values of the command that would add it. A ShapeRecord
+   * has the shape's type as written in the command file, position, size, and color.
+   */
+  private static final class ShapeRecord {
+    private final String type;
+    private int x;
+    private int y;
+    private int sizeX;
+    private int sizeY;
+    private int r;
+    private int g;
+    private int b;
+
+    /**
+     * Constructs a ShapeRecord instantiated to the given values of a shape command.
+     * @param type (String) type of the shape.
+     * @param x (int) x-coordinate of the shape.
+     * @param y (int) y-coordinate of the shape.
+     * @param sizeX (int) horizontal size of the shape.
+     * @param sizeY (int) vertical size of the shape.
+     * @param r (int) intensity of the color red.
+     * @param g (int) intensity of the color green.
+     * @param b (int) intensity of the color blue.
+     */
+    private ShapeRecord(String type, int x, int y, int sizeX, int sizeY, int r, int g, int b) {
+      this.type = type;
+      this.x = x;
+      this.y = y;
+      this.sizeX = sizeX;
+      this.sizeY = sizeY;
+      this.r = r;
+      this.g = g;
+      this.b = b;
+    }
+  }
+}
@@ -1,9 +1,7 @@
 package view;
 
-import java.util.List;
-
 import controller.Features;
-import model.IShape;
+import model.Snapshot;
 
 /**
  * This interface contains all methods that GUI views should support.
@@ -31,10 +29,21 @@ public interface GUIView extends IView {
   void displayErrorMessage();
 
   /**
-   * Updates the window to display the given list of shapes.
-   * @param currentShapes (List</IShape>) list of shapes to be displayed on the window.
+   * Updates the window to display the shapes of the given snapshot.
+   * @param snapshot (Snapshot) snapshot to be displayed on the window.
+   * @param index (int) position of the snapshot in the album. Snapshots taken in the same instant
+   *              can have the same ID, so the position is what tells them apart.
+   */
+  void paintSnapshot(Snapshot snapshot, int index);
+
+  /**
+   * Lets the view prepare the snapshots close to the one currently displayed, so that moving to
+   * them is quick. Views that have nothing to prepare may ignore this.
+   * @param currentIndex (int) position of the currently displayed snapshot.
+   * @param direction (int) direction the user is moving in: negative for backwards, positive for
+   *                  forwards, 0 if unknown.
    */
-  void paintSnapshot(List<IShape> currentShapes);
+  void preloadSnapshots(int currentIndex, int direction);
 
   /**
    * Updates the window to display the current snapshot's ID and description.
@@ -1,21 +1,39 @@
 package view;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.*;
 
 import controller.Features;
+import model.BoundingBox;
 import model.IShape;
+import model.ShapeGrid;
 import model.Snapshot;
 
 import static javax.swing.JOptionPane.CLOSED_OPTION;
 
 /**
  * This class represents an interactive graphical view. A graphical view has a title, and maximum
- * x and y values that specify the bounds of the view window.
+ * x and y values that specify the bounds of the view window. Each snapshot shown is drawn into an
+ * image once, and the images of recently shown snapshots are kept so that going back to them
+ * only has to copy the image onto the window. Snapshots next to the one shown are drawn ahead of
+ * time on background threads, so moving to them only has to copy an image as well. When moving
+ * between snapshots, only the area covered by shapes that were added, removed, or changed is
+ * painted again.
  */
 public class GraphicalView extends JFrame implements GUIView {
+  private static final int GRID_CELL_SIZE = 64;
+  public static final long DEFAULT_IMAGE_CACHE_BUDGET = 256L * 1024 * 1024;
+  public static final int DEFAULT_LOOK_AHEAD = 3;
+  public static final int DEFAULT_RENDER_THREADS = 2;
+  private static final Color BACKGROUND = new Color(51, 153, 255);
+
   private JPanel topPanel;
   private DrawPanel middlePanel;
   private JPanel bottomPanel;
@@ -27,6 +45,12 @@ public class GraphicalView extends JFrame implements GUIView {
   private JButton quitButton;
   private int xMax;
   private int yMax;
+  private SnapshotImageCache images;
+  private List<Snapshot> snapshots;
+  private final int lookAhead;
+  private final ExecutorService renderer;
+  private final Set<Integer> pendingRenders;
+  private volatile int currentIndex;
 
   /**
    * Constructs a GraphicalView instantiated to the given title, and maximum x and y values that
@@ -36,15 +60,66 @@ public class GraphicalView extends JFrame implements GUIView {
    * @param yMax (String) maximum y value that specifies the vertical bound of the view window.
    */
   public GraphicalView(String title, String xMax, String yMax) {
+    this(title, xMax, yMax, DEFAULT_IMAGE_CACHE_BUDGET);
+  }
+
+  /**
+   * Constructs a GraphicalView instantiated to the given title, maximum x and y values that
+   * specify the bounds of the view window, and memory budget for images of shown snapshots. Once
+   * the images take up more than the budget, the least recently shown ones are dropped.
+   * @param title (String) title for the window.
+   * @param xMax (String) maximum x value that specifies the horizontal bound of the view window.
+   * @param yMax (String) maximum y value that specifies the vertical bound of the view window.
+   * @param imageCacheBudget (long) most bytes the images of snapshots may take up (non-negative).
+   * @throws IllegalArgumentException if the image cache budget is negative.
+   */
+  public GraphicalView(String title, String xMax, String yMax, long imageCacheBudget)
+          throws IllegalArgumentException {
+    this(title, xMax, yMax, imageCacheBudget, DEFAULT_LOOK_AHEAD, DEFAULT_RENDER_THREADS);
+  }
+
+  /**
+   * Constructs a GraphicalView instantiated to the given title, maximum x and y values that
+   * specify the bounds of the view window, memory budget for images of snapshots, and settings for
+   * drawing snapshots ahead of time. The snapshots right before and after the one shown are drawn
+   * ahead of time, as well as lookAhead snapshots in the direction the user is moving in.
+   * @param title (String) title for the window.
+   * @param xMax (String) maximum x value that specifies the horizontal bound of the view window.
+   * @param yMax (String) maximum y value that specifies the vertical bound of the view window.
+   * @param imageCacheBudget (long) most bytes the images of snapshots may take up (non-negative).
+   * @param lookAhead (int) how many snapshots ahead to draw ahead of time (non-negative).
+   * @param renderThreads (int) number of background threads that draw snapshots ahead of time
+   *                      (non-negative, 0 turns drawing ahead of time off).
+   * @throws IllegalArgumentException if the image cache budget, look-ahead depth, or number of
+   *                                  threads is negative.
+   */
+  public GraphicalView(String title, String xMax, String yMax, long imageCacheBudget,
+                       int lookAhead, int renderThreads) throws IllegalArgumentException {
     // Set up window (title, close, size)
     super(title);
+    if (lookAhead < 0 || renderThreads < 0) {
+      throw new IllegalArgumentException("Look-ahead depth and thread count cannot be negative!");
+    }
     this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     this.xMax = Integer.parseInt(xMax);
     this.yMax = Integer.parseInt(yMax);
+    this.images = new SnapshotImageCache(imageCacheBudget);
+    this.lookAhead = lookAhead;
+    this.pendingRenders = ConcurrentHashMap.newKeySet();
+
+    // Background threads must not keep the program running once the window is closed
+    this.renderer = renderThreads == 0 ? null : Executors.newFixedThreadPool(renderThreads, r -> {
+      Thread thread = new Thread(r, "snapshot-renderer");
+      thread.setDaemon(true);
+      return thread;
+    });
   }
 
   @Override
   public void produceView(List<Snapshot> snapshots) {
+    // Keep snapshots around for drawing them ahead of time
+    this.snapshots = snapshots;
+
     // Create description panel (top)
     this.topPanel = new JPanel();
     this.topPanel.setBackground(Color.PINK);
@@ -129,9 +204,87 @@ public class GraphicalView extends JFrame implements GUIView {
   }
 
   @Override
-  public void paintSnapshot(List<IShape> shapes) {
-    this.middlePanel.setCurrentSnapshot(shapes);
-    this.repaint();
+  public void paintSnapshot(Snapshot snapshot, int index) {
+    // Draw the snapshot into an image the first time it is shown, then reuse the image
+    BufferedImage image = this.images.get(index);
+    if (image == null && this.canCacheImages()) {
+      image = this.render(snapshot.getShapes());
+      this.images.put(index, image);
+    }
+    Rectangle changed = this.middlePanel.setCurrentSnapshot(snapshot.getShapes(), image);
+
+    // Paint the whole panel for the first snapshot, otherwise only where shapes changed
+    if (changed == null) {
+      this.middlePanel.repaint();
+    } else if (!changed.isEmpty()) {
+      this.middlePanel.repaint(changed);
+    }
+  }
+
+  @Override
+  public void preloadSnapshots(int currentIndex, int direction) {
+    this.currentIndex = currentIndex;
+    if (this.renderer == null || this.snapshots == null || !this.canCacheImages()) {
+      return;
+    }
+
+    // Neighbours on both sides first, then further ahead in the direction of navigation
+    this.preload(currentIndex + (direction < 0 ? -1 : 1));
+    this.preload(currentIndex + (direction < 0 ? 1 : -1));
+    if (direction != 0) {
+      for (int i = 2; i <= this.lookAhead; i++) {
+        this.preload(currentIndex + i * Integer.signum(direction));
+      }
+    }
+  }
+
+  /**
+   * A helper method that draws the snapshot at the given position on a background thread, unless
+   * it does not exist, is already being drawn, or is no longer close to the snapshot shown by the
+   * time a thread gets to it.
+   * @param index (int) position of the snapshot to be drawn.
+   */
+  private void preload(int index) {
+    if (index < 0 || index >= this.snapshots.size() || !this.pendingRenders.add(index)) {
+      return;
+    }
+    this.renderer.execute(() -> {
+      try {
+        if (Math.abs(index - this.currentIndex) <= Math.max(1, this.lookAhead)) {
+          if (this.images.get(index) == null) {
+            this.images.put(index, this.render(this.snapshots.get(index).getShapes()));
+          }
+        }
+      } finally {
+        this.pendingRenders.remove(index);
+      }
+    });
+  }
+
+  /**
+   * A helper method that checks whether an image of the whole drawing panel can be cached.
+   * @return (boolean) true if images can be cached, false otherwise.
+   */
+  private boolean canCacheImages() {
+    return this.xMax > 0 && this.yMax > 0 && this.images.fits(this.xMax, this.yMax);
+  }
+
+  /**
+   * A helper method that draws the given shapes onto a new image the size of the drawing panel.
+   * Safe to call from any thread.
+   * @param shapes (List</IShape>) shapes to be drawn, bottom to top.
+   * @return (BufferedImage) image of the shapes.
+   */
+  private BufferedImage render(List<IShape> shapes) {
+    BufferedImage image = new BufferedImage(this.xMax, this.yMax, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    g.setColor(BACKGROUND);
+    g.fillRect(0, 0, this.xMax, this.yMax);
+    for (IShape each : shapes) {
+      each.draw(g);
+    }
+    g.dispose();
+    return image;
   }
 
   @Override
@@ -142,10 +295,15 @@ public class GraphicalView extends JFrame implements GUIView {
 
 
   /**
-   * This class represents the panel in the window that draws the desired snapshot.
+   * This class represents the panel in the window that draws the desired snapshot. If the snapshot
+   * has already been drawn into an image, the image is copied onto the panel. Otherwise only the
+   * shapes that intersect the part of the panel being painted are drawn, which are looked up in a
+   * spatial index built once for each snapshot.
    */
   private class DrawPanel extends JPanel {
     private List<IShape> currentSnapshot;
+    private ShapeGrid currentIndex;
+    private BufferedImage currentImage;
 
     /**
      * Constructs a DrawPanel object.
@@ -154,11 +312,86 @@ public class GraphicalView extends JFrame implements GUIView {
     }
 
     /**
-     * Updates the current snapshot to be displayed on the panel.
+     * Updates the current snapshot to be displayed on the panel, and returns the area of the
+     * panel that looks different from the previous snapshot.
      * @param currentShapes (List</IShape>) list of shapes in the snapshot to be displayed.
+     * @param image (BufferedImage) image of the snapshot, or null if it has not been drawn.
+     * @return (Rectangle) area covered by shapes that were added, removed, or changed since the
+     *         previous snapshot (empty if nothing changed), or null if there was no previous
+     *         snapshot.
      */
-    public void setCurrentSnapshot(List<IShape> currentShapes) {
+    public Rectangle setCurrentSnapshot(List<IShape> currentShapes, BufferedImage image) {
+      Rectangle changed = this.currentSnapshot == null ? null
+              : changedArea(this.currentSnapshot, currentShapes);
+      this.currentImage = image;
+
+      // Without an image, index the shapes' bounds once per snapshot so every paint can skip
+      // shapes out of view
+      if (image != null) {
+        this.currentIndex = null;
+      } else if (currentShapes != this.currentSnapshot || this.currentIndex == null) {
+        this.currentIndex = new ShapeGrid(GRID_CELL_SIZE, currentShapes);
+      }
       this.currentSnapshot = currentShapes;
+      return changed;
+    }
+
+    /**
+     * A helper method that returns the area covered by shapes that differ between the given
+     * snapshots. Snapshots share the shapes that did not change between them, and keep shapes in
+     * the order they were added, so both lists are walked side by side: the same object is the
+     * same shape, the same name on a different object is a changed shape, and anything else in
+     * the previous snapshot was removed. What is left of the next snapshot was added. A shape
+     * that was removed and added again is covered at both of its places in the order.
+     * @param before (List</IShape>) shapes in the previous snapshot.
+     * @param after (List</IShape>) shapes in the next snapshot.
+     * @return (Rectangle) area covered by the old and new bounds of added, removed, and changed
+     *         shapes, or an empty rectangle if nothing changed.
+     */
+    private Rectangle changedArea(List<IShape> before, List<IShape> after) {
+      Rectangle changed = new Rectangle();
+      if (before == after) {
+        return changed;
+      }
+      int i = 0;
+      int j = 0;
+      while (i < before.size() && j < after.size()) {
+        IShape old = before.get(i);
+        IShape current = after.get(j);
+        if (old == current) {
+          j++;
+        } else if (old.getName().equals(current.getName())) {
+          changed = addBounds(addBounds(changed, old), current);
+          j++;
+        } else {
+          changed = addBounds(changed, old);
+        }
+        i++;
+      }
+
+      // Whatever is left over was removed from the previous snapshot or added to the next one
+      for (; i < before.size(); i++) {
+        changed = addBounds(changed, before.get(i));
+      }
+      for (; j < after.size(); j++) {
+        changed = addBounds(changed, after.get(j));
+      }
+      return changed;
+    }
+
+    /**
+     * A helper method that grows the given area to also cover the given shape. The shape's bounds
+     * are padded by a pixel since drawing can touch the pixel past its max corner.
+     * @param area (Rectangle) the area so far, empty if nothing was added yet.
+     * @param shape (IShape) the shape to be covered.
+     * @return (Rectangle) the area covering both.
+     */
+    private Rectangle addBounds(Rectangle area, IShape shape) {
+      BoundingBox bounds = shape.getBounds();
+      Rectangle covered = new Rectangle(bounds.getX(), bounds.getY(),
+              (int) Math.min(Integer.MAX_VALUE, (long) bounds.getWidth() + 2),
+              (int) Math.min(Integer.MAX_VALUE, (long) bounds.getHeight() + 2));
+      return area.isEmpty() ? covered : area.union(covered);
     }
 
     @Override
@@ -173,10 +406,25 @@ public class GraphicalView extends JFrame implements GUIView {
       super.paintComponent(g);
 
       // Now paint my components (background and shapes from snapshot)
-      setBackground(new Color(51, 153, 255));
-      for (IShape each : this.currentSnapshot) {
+      setBackground(BACKGROUND);
+      if (this.currentImage != null) {
+        g.drawImage(this.currentImage, 0, 0, null);
+        return;
+      }
+      if (this.currentIndex == null) {
+        return;
+      }
+
+      // Only draw the shapes in the area that needs painting (the visible part when scrolling)
+      Rectangle clip = g.getClipBounds();
+      if (clip == null) {
+        clip = new Rectangle(0, 0, this.getWidth(), this.getHeight());
+      }
+      BoundingBox area = new BoundingBox(clip.x, clip.y, Math.max(0, clip.width),
+              Math.max(0, clip.height));
+      for (IShape each : this.currentIndex.query(area)) {
         each.draw(g);
       }
     }
   }
-}
\ No newline at end of file
+}
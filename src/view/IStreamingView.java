@@ -0,0 +1,33 @@
+package view;
+
+import java.io.IOException;
+
+import model.SnapshotWriter;
+
+/**
+ * This interface contains all methods that views which write out snapshots one at a time should
+ * support. Between startView() and finishView(), every snapshot given to write() is added to the
+ * view right away, so the view never holds more than one snapshot at a time.
+ */
+public interface IStreamingView extends IView, SnapshotWriter {
+
+  /**
+   * Opens the output of the view and writes everything that comes before the snapshots.
+   * @throws IOException if the output could not be opened or written to.
+   */
+  void startView() throws IOException;
+
+  /**
+   * Writes everything that comes after the snapshots and closes the output of the view.
+   * @throws IOException if the output could not be written to or closed.
+   */
+  void finishView() throws IOException;
+
+  /**
+   * Closes the output of the view if it is still open, without writing what comes after the
+   * snapshots, so that what was written so far is not lost and the output is not left open when
+   * the view cannot be finished. Does nothing if the view was finished or never started.
+   * @throws IOException if the output could not be closed.
+   */
+  void abortView() throws IOException;
+}
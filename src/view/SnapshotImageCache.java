@@ -0,0 +1,91 @@
+package view;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class represents a cache of rendered snapshots. A SnapshotImageCache maps the positions of
+ * snapshots in the album to images of the snapshots, and drops the least recently used images
+ * once the images together take up more memory than the budget allows.
+ */
+class SnapshotImageCache {
+  private final long budget;
+  private final Map<Integer, BufferedImage> images;
+  private long usedBytes;
+
+  /**
+   * Constructs an empty SnapshotImageCache instantiated to the given memory budget.
+   * @param budget (long) most bytes the cached images may take up together (non-negative).
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  SnapshotImageCache(long budget) throws IllegalArgumentException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("Image cache budget cannot be negative!");
+    }
+    this.budget = budget;
+    this.images = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Returns the image of the snapshot at the given position, or null if it is not cached. Marks
+   * the image as the most recently used one.
+   * @param index (int) position of the snapshot, starting from 0.
+   * @return (BufferedImage) image of the snapshot, or null if it is not cached.
+   */
+  synchronized BufferedImage get(int index) {
+    return this.images.get(index);
+  }
+
+  /**
+   * Checks whether an image of the given size fits in the budget at all.
+   * @param width (int) width of the image.
+   * @param height (int) height of the image.
+   * @return (boolean) true if the image can be cached, false if it is larger than the budget.
+   */
+  boolean fits(int width, int height) {
+    return bytesOf(width, height) <= this.budget;
+  }
+
+  /**
+   * Caches the given image of the snapshot at the given position, dropping the least recently
+   * used images until everything fits in the budget. Images larger than the whole budget are not
+   * cached.
+   * @param index (int) position of the snapshot, starting from 0.
+   * @param image (BufferedImage) image of the snapshot.
+   */
+  synchronized void put(int index, BufferedImage image) {
+    long bytes = bytesOf(image.getWidth(), image.getHeight());
+    if (bytes > this.budget) {
+      return;
+    }
+
+    BufferedImage old = this.images.put(index, image);
+    if (old != null) {
+      this.usedBytes -= bytesOf(old.getWidth(), old.getHeight());
+    }
+    this.usedBytes += bytes;
+
+    // Drop least recently used images (first in the map) until the budget is met
+    Iterator<BufferedImage> eldest = this.images.values().iterator();
+    while (this.usedBytes > this.budget && eldest.hasNext()) {
+      BufferedImage each = eldest.next();
+      if (each != image) {
+        this.usedBytes -= bytesOf(each.getWidth(), each.getHeight());
+        eldest.remove();
+      }
+    }
+  }
+
+  /**
+   * A helper method that returns how many bytes an image of the given size takes up (4 bytes per
+   * pixel).
+   * @param width (int) width of the image.
+   * @param height (int) height of the image.
+   * @return (long) bytes the image takes up.
+   */
+  private static long bytesOf(int width, int height) {
+    return 4L * width * height;
+  }
+}
@@ -4,21 +4,43 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 import model.IShape;
 import model.Snapshot;
 
 /**
  * This class represents a static web page view with HTML markup and SVG. A web view has a title,
- * output HTML file, and maximum x and y values that specify the bounds of the view window.
+ * output HTML file, and maximum x and y values that specify the bounds of the view window. The
+ * whole page can be created at once from a list of snapshots, or streamed to the file one
+ * snapshot at a time.
  */
-public class WebView implements IView {
+public class WebView implements IStreamingView {
+  private static final int SNAPSHOTS_PER_THREAD = 4;
+  private static final String STATE_ID_PREFIX = "state";
+  private static final int WRITE_CHUNK_SIZE = 8192;
+
   private File f;
   private final String title;
   private final String maxX;
   private final String maxY;
+  private final boolean dedupe;
+  private final boolean compact;
   private StringBuilder output;
+  private Writer writer;
+  private StringBuilder snapshotMarkup;
+  private char[] snapshotChars;
+  private Map<String, String> stateIDs;
+  private Set<Integer> fillColors;
 
   /**
    * Constructs a WebView instantiated to the given title, output file name, and maximum x and y
@@ -33,6 +55,47 @@ public class WebView implements IView {
    */
   public WebView(String title, String fileName, String maxX, String maxY)
           throws IllegalArgumentException {
+    this(title, fileName, maxX, maxY, false);
+  }
+
+  /**
+   * Constructs a WebView instantiated to the given title, output file name, maximum x and y
+   * values that specify the bounds of the view window, and whether to write each distinct shape
+   * only once. When deduplicating, a shape that looks the same as one in an earlier snapshot is
+   * not written again, but is drawn with a reference (SVG use) to where it was first defined.
+   * Output file must be an HTML file (.html).
+   * @param title (String) title for the web view.
+   * @param fileName (String) name of the output HTML file.
+   * @param maxX (String) maximum x value that specifies the horizontal bound of the view window.
+   * @param maxY (String) maximum y value that specifies the vertical bound of the view window.
+   * @param dedupe (boolean) whether to write each distinct shape only once.
+   * @throws IllegalArgumentException if title or output file name is null, output file name is
+   *                                  blank, given output file name is not an HTML file, or if max
+   *                                  x and y values are not integer numbers.
+   */
+  public WebView(String title, String fileName, String maxX, String maxY, boolean dedupe)
+          throws IllegalArgumentException {
+    this(title, fileName, maxX, maxY, dedupe, false);
+  }
+
+  /**
+   * Constructs a WebView instantiated to the given title, output file name, maximum x and y
+   * values that specify the bounds of the view window, whether to write each distinct shape only
+   * once, and whether to write compact markup. Compact markup has no whitespace between elements,
+   * self-closing shape elements with whole numbers, and a CSS class for each fill color instead
+   * of the color itself. Output file must be an HTML file (.html).
+   * @param title (String) title for the web view.
+   * @param fileName (String) name of the output HTML file.
+   * @param maxX (String) maximum x value that specifies the horizontal bound of the view window.
+   * @param maxY (String) maximum y value that specifies the vertical bound of the view window.
+   * @param dedupe (boolean) whether to write each distinct shape only once.
+   * @param compact (boolean) whether to write compact markup.
+   * @throws IllegalArgumentException if title or output file name is null, output file name is
+   *                                  blank, given output file name is not an HTML file, or if max
+   *                                  x and y values are not integer numbers.
+   */
+  public WebView(String title, String fileName, String maxX, String maxY, boolean dedupe,
+                 boolean compact) throws IllegalArgumentException {
     // Title can't be null and output file name cannot be null or blank
     if (title == null || fileName == null || fileName.equals("")
             || fileName.equalsIgnoreCase(".html")) {
@@ -56,36 +119,269 @@ public class WebView implements IView {
     this.f = new File(fileName);
     this.maxX = maxX;
     this.maxY = maxY;
+    this.dedupe = dedupe;
+    this.compact = compact;
     this.output = new StringBuilder();
+    this.stateIDs = new HashMap<>();
+    this.fillColors = new HashSet<>();
   }
 
   /**
    * A helper method which creates a String of the HTML markup and SVG based on the given list of
-   * snapshots. The String that is produced will be what is written to the HTML file.
+   * snapshots. The String that is produced will be what is written to the HTML file. Snapshots do
+   * not depend on each other, so the markup of each one is created on all cores into a buffer of
+   * its own, and the buffers are put together in the order of the snapshots.
    * @param snapshots (List</Snapshot>) the snapshots to be displayed in the web view.
    */
   private void createHTMLMarkup(List<Snapshot> snapshots) {
+    // Keep a few snapshots per thread being created while the oldest one is put in place
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    int window = pool.getParallelism() * SNAPSHOTS_PER_THREAD;
+    Deque<CompletableFuture<SnapshotMarkup>> creating = new ArrayDeque<>();
+    int next = 0;
+    this.stateIDs = new HashMap<>();
+    this.fillColors = new HashSet<>();
+    try {
+      this.appendHeader(this.output);
+      while (next < snapshots.size() || !creating.isEmpty()) {
+        while (next < snapshots.size() && creating.size() < window) {
+          Snapshot snapshot = snapshots.get(next);
+          creating.add(CompletableFuture.supplyAsync(() -> this.createSnapshotMarkup(snapshot),
+                  pool));
+          next++;
+        }
+        this.placeSnapshotMarkup(this.output, creating.poll().join());
+      }
+      this.appendFooter(this.output);
+    } catch (IOException e) {
+      // Appending to a StringBuilder never fails
+      throw new IllegalStateException("Could not create the HTML markup!", e);
+    }
+  }
+
+  /**
+   * A helper method which creates as much of the markup of the given snapshot as can be created
+   * without the snapshots before it, in a buffer of its own. Without deduplication that is the
+   * markup of all of its shapes. With it, that is the state of each shape: its markup without an
+   * id, which is only given a place once the snapshots before it are in place. Compact markup
+   * also needs the fill color of each shape, since each color is defined only once.
+   * @param snapshot (Snapshot) the snapshot to be displayed.
+   * @return (SnapshotMarkup) the markup created for the snapshot.
+   */
+  private SnapshotMarkup createSnapshotMarkup(Snapshot snapshot) {
+    SnapshotMarkup created = new SnapshotMarkup(snapshot);
+    List<IShape> shapes = snapshot.getShapes();
+    try {
+      if (this.compact) {
+        created.colors = new int[shapes.size()];
+        for (int i = 0; i < shapes.size(); i++) {
+          created.colors[i] = shapes.get(i).getColor().getRGB() & 0xFFFFFF;
+        }
+      }
+      if (this.dedupe) {
+        created.states = new String[shapes.size()];
+        StringBuilder state = new StringBuilder();
+        for (int i = 0; i < shapes.size(); i++) {
+          state.setLength(0);
+          this.appendShape(state, shapes.get(i), null);
+          created.states[i] = state.toString();
+        }
+      } else {
+        created.markup = new StringBuilder();
+        for (IShape shape : shapes) {
+          this.appendShape(created.markup, shape, shape.getName());
+        }
+      }
+    } catch (IOException e) {
+      // Appending to a StringBuilder never fails
+      throw new IllegalStateException("Could not create the HTML markup!", e);
+    }
+    return created;
+  }
+
+  /**
+   * A helper method which writes the markup created for a snapshot to the given output, after
+   * the markup of every snapshot before it. When deduplicating, shapes that look like none in the
+   * snapshots before are defined in this snapshot, and every shape is drawn with a reference to
+   * where it was defined, which has the name of the shape as its id. Compact markup defines the
+   * CSS classes of fill colors that were not seen before.
+   * @param out (Appendable) where the markup is written to.
+   * @param created (SnapshotMarkup) the markup created for the snapshot.
+   * @throws IOException if the markup could not be written to the output.
+   */
+  private void placeSnapshotMarkup(Appendable out, SnapshotMarkup created) throws IOException {
+    this.appendSnapshotStart(out, created.snapshot);
+    if (created.colors != null) {
+      this.appendFillClasses(out, created.colors);
+    }
+    if (created.markup != null) {
+      out.append(created.markup);
+      this.appendSnapshotEnd(out);
+      return;
+    }
+
+    // Define the shapes that were not seen before
+    List<IShape> shapes = created.snapshot.getShapes();
+    String[] ids = new String[shapes.size()];
+    boolean defining = false;
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = this.stateIDs.get(created.states[i]);
+      if (ids[i] == null) {
+        if (!defining) {
+          out.append(this.compact ? "<defs>" : "\t\t<defs>\n");
+          defining = true;
+        }
+        ids[i] = STATE_ID_PREFIX + this.stateIDs.size();
+        this.stateIDs.put(created.states[i], ids[i]);
+        this.appendShape(out, shapes.get(i), ids[i]);
+      }
+    }
+    if (defining) {
+      out.append(this.compact ? "</defs>" : "\t\t</defs>\n");
+    }
+
+    // Draw every shape from where it was defined, under its own name
+    for (int i = 0; i < ids.length; i++) {
+      out.append(this.compact ? "<use id=\"" : "\t\t<use id=\"").append(shapes.get(i).getName())
+              .append("\" href=\"#").append(ids[i]).append(this.compact ? "\"/>" : "\"/>\n");
+    }
+    this.appendSnapshotEnd(out);
+  }
+
+  /**
+   * A helper method which writes the markup of the given shape to the given output, compact or
+   * not.
+   * @param out (Appendable) where the markup is written to.
+   * @param shape (IShape) the shape to be drawn.
+   * @param id (String) id of the element, or null to leave the id out.
+   * @throws IOException if the markup could not be written to the output.
+   */
+  private void appendShape(Appendable out, IShape shape, String id) throws IOException {
+    if (this.compact) {
+      shape.appendCompactSVG(out, id);
+    } else {
+      shape.appendSVG(out, id);
+    }
+  }
+
+  /**
+   * A helper method which writes a CSS style to the given output that defines a class for each of
+   * the given fill colors that was not seen before, named c followed by the color in hex digits.
+   * @param out (Appendable) where the style is written to.
+   * @param colors (int[]) fill colors of the shapes of a snapshot, as 0xRRGGBB.
+   * @throws IOException if the style could not be written to the output.
+   */
+  private void appendFillClasses(Appendable out, int[] colors) throws IOException {
+    boolean styling = false;
+    for (int color : colors) {
+      if (this.fillColors.add(color)) {
+        if (!styling) {
+          out.append("<style>");
+          styling = true;
+        }
+        out.append(".c");
+        appendHex(out, color);
+        out.append("{fill:#");
+        appendHex(out, color);
+        out.append('}');
+      }
+    }
+    if (styling) {
+      out.append("</style>");
+    }
+  }
+
+  /**
+   * A helper method which writes the given color to the given output as six hex digits.
+   * @param out (Appendable) where the color is written to.
+   * @param color (int) the color, as 0xRRGGBB.
+   * @throws IOException if the color could not be written to the output.
+   */
+  private static void appendHex(Appendable out, int color) throws IOException {
+    for (int shift = 20; shift >= 0; shift -= 4) {
+      out.append(Character.forDigit((color >> shift) & 0xF, 16));
+    }
+  }
+
+  /**
+   * A helper method which writes the HTML markup that comes before the snapshots to the given
+   * output.
+   * @param out (Appendable) where the markup is written to.
+   * @throws IOException if the markup could not be written to the output.
+   */
+  private void appendHeader(Appendable out) throws IOException {
+    if (this.compact) {
+      out.append("<!DOCTYPE html><html><body><h1>").append(this.title).append("</h1>"
+              + "<style>.myDiv{border:5px outset red;background-color:lightblue}</style>");
+      return;
+    }
+
     // Define header
-    this.output.append("<!DOCTYPE html>\n<html>\n<body>\n<h1>" + this.title + "</h1>\n");
+    out.append("<!DOCTYPE html>\n<html>\n<body>\n<h1>").append(this.title).append("</h1>\n");
 
     // Define style of each snapshot border/area
-    this.output.append("<style>\n.myDiv {\n\tborder: 5px outset red;\n\tbackground-color: "
+    out.append("<style>\n.myDiv {\n\tborder: 5px outset red;\n\tbackground-color: "
             + "lightblue;\n}\n</style>\n");
+  }
+
+  /**
+   * A helper method which writes the HTML markup and SVG of the given snapshot to the given
+   * output.
+   * @param out (Appendable) where the markup is written to.
+   * @param snapshot (Snapshot) the snapshot to be displayed.
+   * @throws IOException if the markup could not be written to the output.
+   */
+  private void appendSnapshot(Appendable out, Snapshot snapshot) throws IOException {
+    this.appendSnapshotStart(out, snapshot);
 
-    // Add each snapshot to HTML
-    for (Snapshot each : snapshots) {
-      this.output.append("<div class=\"myDiv\">\n\t<h3>" + each.getID() + "</h3>\n\t<p>Description: "
-              + each.getDescription() + "</p>\n");
-      this.output.append("\t<svg width=\"" + this.maxX + "\" height=\"" + this.maxY + "\">\n");
+    // Draw shapes from snapshot
+    for (IShape shape : snapshot.getShapes()) {
+      shape.appendSVG(out);
+    }
 
-      // Draw shapes from snapshot
-      for (IShape shape : each.getShapes()) {
-        this.output.append(shape.toSVG());
-      }
+    this.appendSnapshotEnd(out);
+  }
 
-      this.output.append("\t</svg>\n</div>\n<p>\n</p>\n");
+  /**
+   * A helper method which writes the HTML markup that comes before the shapes of the given
+   * snapshot to the given output.
+   * @param out (Appendable) where the markup is written to.
+   * @param snapshot (Snapshot) the snapshot to be displayed.
+   * @throws IOException if the markup could not be written to the output.
+   */
+  private void appendSnapshotStart(Appendable out, Snapshot snapshot) throws IOException {
+    if (this.compact) {
+      out.append("<div class=\"myDiv\"><h3>").append(snapshot.getID())
+              .append("</h3><p>Description: ").append(snapshot.getDescription())
+              .append("</p><svg width=\"").append(this.maxX).append("\" height=\"")
+              .append(this.maxY).append("\">");
+      return;
     }
-    this.output.append("</body>\n</html>\n");
+    out.append("<div class=\"myDiv\">\n\t<h3>").append(snapshot.getID())
+            .append("</h3>\n\t<p>Description: ").append(snapshot.getDescription())
+            .append("</p>\n");
+    out.append("\t<svg width=\"").append(this.maxX).append("\" height=\"").append(this.maxY)
+            .append("\">\n");
+  }
+
+  /**
+   * A helper method which writes the HTML markup that comes after the shapes of a snapshot to the
+   * given output.
+   * @param out (Appendable) where the markup is written to.
+   * @throws IOException if the markup could not be written to the output.
+   */
+  private void appendSnapshotEnd(Appendable out) throws IOException {
+    out.append(this.compact ? "</svg></div><p></p>" : "\t</svg>\n</div>\n<p>\n</p>\n");
+  }
+
+  /**
+   * A helper method which writes the HTML markup that comes after the snapshots to the given
+   * output.
+   * @param out (Appendable) where the markup is written to.
+   * @throws IOException if the markup could not be written to the output.
+   */
+  private void appendFooter(Appendable out) throws IOException {
+    out.append(this.compact ? "</body></html>" : "</body>\n</html>\n");
   }
 
   @Override
@@ -99,15 +395,106 @@ public class WebView implements IView {
     // Create the HTML and SVG markup for the file (contains snapshot information)
     this.createHTMLMarkup(snapshots);
 
-    // Write snapshot information to the HTML file
+    // Write snapshot information to the HTML file, copying the markup out of the buffer a chunk
+    // at a time so that no String of the whole document is made
     try ( BufferedWriter bw = new BufferedWriter(new FileWriter(f)); ) {
-      bw.write(this.output.toString());
+      char[] chunk = new char[WRITE_CHUNK_SIZE];
+      int length = this.output.length();
+      for (int start = 0; start < length; start += chunk.length) {
+        int end = Math.min(length, start + chunk.length);
+        this.output.getChars(start, end, chunk, 0);
+        bw.write(chunk, 0, end - start);
+      }
     }
     catch (IOException e) {
       System.out.println("Could not create or write to the desired output file!");
     }
   }
 
+  /**
+   * Opens the output HTML file and writes the markup that comes before the snapshots. Snapshots
+   * given to write() afterwards go straight to the file, and are not kept in toString().
+   * @throws IOException if the output file could not be created or written to.
+   */
+  @Override
+  public void startView() throws IOException {
+    // Check if output file already exists
+    if (this.f.exists()) {
+      System.out.println("File already exists!");
+      System.exit(0);
+    }
+    this.writer = new BufferedWriter(new FileWriter(this.f));
+    this.snapshotMarkup = new StringBuilder();
+    this.snapshotChars = new char[0];
+    this.stateIDs = new HashMap<>();
+    this.fillColors = new HashSet<>();
+    this.appendHeader(this.writer);
+  }
+
+  /**
+   * Writes the markup of the given snapshot to the output HTML file. The markup is created in a
+   * buffer that is reused for every snapshot, and written to the file all at once.
+   * @param snapshot (Snapshot) the snapshot to be displayed.
+   * @throws IOException if the output file could not be written to.
+   * @throws IllegalStateException if the view was not started.
+   */
+  @Override
+  public void write(Snapshot snapshot) throws IOException, IllegalStateException {
+    if (this.writer == null) {
+      throw new IllegalStateException("The web view must be started before writing snapshots!");
+    }
+    this.snapshotMarkup.setLength(0);
+    if (this.dedupe || this.compact) {
+      this.placeSnapshotMarkup(this.snapshotMarkup, this.createSnapshotMarkup(snapshot));
+    } else {
+      this.appendSnapshot(this.snapshotMarkup, snapshot);
+    }
+
+    // Copy the markup out of the buffer without making a String of it
+    int length = this.snapshotMarkup.length();
+    if (this.snapshotChars.length < length) {
+      this.snapshotChars = new char[Math.max(length, this.snapshotChars.length * 2)];
+    }
+    this.snapshotMarkup.getChars(0, length, this.snapshotChars, 0);
+    this.writer.write(this.snapshotChars, 0, length);
+  }
+
+  /**
+   * Writes the markup that comes after the snapshots to the output HTML file and closes it.
+   * @throws IOException if the output file could not be written to or closed.
+   * @throws IllegalStateException if the view was not started.
+   */
+  @Override
+  public void finishView() throws IOException, IllegalStateException {
+    if (this.writer == null) {
+      throw new IllegalStateException("The web view must be started before finishing it!");
+    }
+    try {
+      this.appendFooter(this.writer);
+    } finally {
+      this.abortView();
+    }
+  }
+
+  /**
+   * Closes the output HTML file if it is still open, without writing the markup that comes after
+   * the snapshots. Does nothing if the view was finished or never started.
+   * @throws IOException if the output file could not be closed.
+   */
+  @Override
+  public void abortView() throws IOException {
+    if (this.writer == null) {
+      return;
+    }
+    try {
+      this.writer.close();
+    } finally {
+      this.writer = null;
+      this.snapshotMarkup = null;
+      this.snapshotChars = null;
+    }
+  }
+
   /**
    * For testing purposes. Returns a String containing the contents that are written to the output
    * HTML file.
@@ -117,4 +504,24 @@ public class WebView implements IView {
   public String toString() {
     return this.output.toString();
   }
+
+  /**
+   * This class represents the markup created for a snapshot before it is given its place in the
+   * page. A SnapshotMarkup has its snapshot and either the markup of all of its shapes, or the
+   * state of each of its shapes when deduplicating, as well as their fill colors when compact.
+   */
+  private static final class SnapshotMarkup {
+    private final Snapshot snapshot;
+    private StringBuilder markup;
+    private String[] states;
+    private int[] colors;
+
+    /**
+     * Constructs a SnapshotMarkup instantiated to the given snapshot, with no markup yet.
+     * @param snapshot (Snapshot) the snapshot to be displayed.
+     */
+    private SnapshotMarkup(Snapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+  }
 }
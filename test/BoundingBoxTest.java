@@ -0,0 +1,90 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import model.BoundingBox;
+
+/**
+ * A JUnit test class for the BoundingBox class.
+ */
+public class BoundingBoxTest {
+  private BoundingBox box1;
+  private BoundingBox box2;
+  private BoundingBox box3;
+
+  /**
+   * Instantiate valid BoundingBox objects for testing.
+   */
+  @Before
+  public void setUp() {
+    box1 = new BoundingBox(0, 0, 0, 0);
+    box2 = new BoundingBox(-10, -20, 30, 40);
+    box3 = new BoundingBox(100, 100, Integer.MAX_VALUE, 5);
+  }
+
+  /**
+   * Positive testing for constructor.
+   */
+  @Test
+  public void testValidBoundingBox() {
+    assertEquals("Min corner: (0.0, 0.0), Width: 0.0, Height: 0.0", box1.toString());
+    assertEquals("Min corner: (-10.0, -20.0), Width: 30.0, Height: 40.0", box2.toString());
+    assertEquals("Min corner: (100.0, 100.0), Width: 2147483647.0, Height: 5.0",
+            box3.toString());
+  }
+
+  /**
+   * Negative testing for constructor. Negative width.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidBoundingBox1() {
+    box1 = new BoundingBox(0, 0, -1, 0);
+  }
+
+  /**
+   * Negative testing for constructor. Negative height.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidBoundingBox2() {
+    box1 = new BoundingBox(0, 0, 0, -1);
+  }
+
+  /**
+   * Positive testing for getMaxX() and getMaxY() methods. Max corner never overflows.
+   */
+  @Test
+  public void testGetMax() {
+    assertEquals(0, box1.getMaxX());
+    assertEquals(20, box2.getMaxX());
+    assertEquals(20, box2.getMaxY());
+    assertEquals(2147483747L, box3.getMaxX());
+    assertEquals(105, box3.getMaxY());
+  }
+
+  /**
+   * Positive testing for intersects() method.
+   */
+  @Test
+  public void testIntersects() {
+    assertTrue(box1.intersects(box2));
+    assertTrue(box2.intersects(box1));
+    assertFalse(box2.intersects(box3));
+    assertTrue(box3.intersects(new BoundingBox(2000000000, 105, 0, 0)));
+    assertFalse(box3.intersects(new BoundingBox(2000000000, 106, 10, 10)));
+  }
+
+  /**
+   * Positive testing for contains() method.
+   */
+  @Test
+  public void testContains() {
+    assertTrue(box1.contains(0, 0));
+    assertFalse(box1.contains(1, 0));
+    assertTrue(box2.contains(-10, 20));
+    assertFalse(box2.contains(-11, 0));
+    assertTrue(box3.contains(Integer.MAX_VALUE, 102));
+  }
+}
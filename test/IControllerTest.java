@@ -1,14 +1,24 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
 import controller.IController;
 import controller.InteractiveController;
 import controller.StaticController;
 import model.IPhotoAlbum;
+import model.ShapesPhotoAlbumModel;
+import util.LoadMode;
 import view.GUIView;
 import view.IView;
+import view.WebView;
 
 /**
  * A JUnit test class for the classes that implement IController. Ensures input provided to
@@ -115,4 +125,31 @@ public class IControllerTest {
     interactiveController2.nextSnapshot();
     assertEquals("1234321", guiView2.toString());
   }
-}
\ No newline at end of file
+
+  /**
+   * Testing for go() method of the static controller when streaming, with a command file that
+   * stops loading part way. What was written before the bad command is still in the output file,
+   * since the file is closed.
+   */
+  @Test
+  public void testStreamBadFile() throws IOException {
+    File input = File.createTempFile("album", ".txt");
+    File output = File.createTempFile("album", ".html");
+    input.deleteOnExit();
+    output.delete();
+    output.deleteOnExit();
+    Files.writeString(input.toPath(), "shape r1 rectangle 1 2 3 4 5 6 7\nsnapshot one\n"
+            + "color r1 1 999 1\nsnapshot two\n");
+    IController controller = new StaticController(input.getPath(), new ShapesPhotoAlbumModel(),
+            new WebView("Title", output.getPath(), "10", "10"), LoadMode.STREAM, false, true);
+    try {
+      controller.go();
+      fail("Loading should have stopped at the bad color!");
+    } catch (IllegalArgumentException e) {
+      String written = Files.readString(output.toPath());
+      assertTrue(written.contains("<p>Description: one"));
+      assertFalse(written.contains("Description: two"));
+      assertFalse(written.endsWith("</html>\n"));
+    }
+  }
+}
@@ -1,15 +1,26 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import model.IPhotoAlbum;
 import model.IShape;
+import model.ISnapshotStore;
 import model.ShapesPhotoAlbumModel;
 import model.Snapshot;
 
@@ -662,6 +673,89 @@ public class IPhotoAlbumTest {
             album3.getSnapshots().toString());
   }
 
+  /**
+   * Positive testing for takeSnapshot() method. Ensure shapes that did not change between
+   * snapshots are shared instead of copied, and that shapes in a snapshot are read-only.
+   */
+  @Test
+  public void testTakeSnapshotSharesUnchangedShapes() {
+    album3.takeSnapshot("Second selfie");
+    album3.moveShape("o2", 10, 10);
+    album3.takeSnapshot("Moved o2");
+    List<Snapshot> snaps3 = album3.getSnapshots();
+
+    // r2 did not change between any of the snapshots
+    assertSame(snaps3.get(0).getShapes().get(0), snaps3.get(1).getShapes().get(0));
+    assertSame(snaps3.get(1).getShapes().get(0), snaps3.get(2).getShapes().get(0));
+
+    // o2 only changed before the last snapshot
+    assertSame(snaps3.get(0).getShapes().get(1), snaps3.get(1).getShapes().get(1));
+    assertNotSame(snaps3.get(1).getShapes().get(1), snaps3.get(2).getShapes().get(1));
+    assertEquals("(1000.0, 1000.0)", snaps3.get(1).getShapes().get(1).getPoint().toString());
+    assertEquals("(10.0, 10.0)", snaps3.get(2).getShapes().get(1).getPoint().toString());
+
+    // Deep copies of snapshot shapes can still be changed
+    IShape copy = snaps3.get(0).getShapes().get(0).cloneDeep();
+    copy.setPoint(5, 5);
+    assertEquals("(5.0, 5.0)", copy.getPoint().toString());
+    assertEquals("(0.0, 0.0)", snaps3.get(0).getShapes().get(0).getPoint().toString());
+  }
+
+  /**
+   * Negative testing for takeSnapshot() method. Shapes in a snapshot cannot be changed.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testSnapshotShapesReadOnly() {
+    album3.getSnapshots().get(0).getShapes().get(0).setPoint(1, 1);
+  }
+
+  /**
+   * Positive testing for rebuilding snapshots saved as changes between keyframes. Albums with
+   * different keyframe intervals and cache sizes must give back the same snapshots.
+   */
+  @Test
+  public void testKeyframeInterval() {
+    IPhotoAlbum everyKeyframe = new ShapesPhotoAlbumModel(1, 1);
+    IPhotoAlbum fewKeyframes = new ShapesPhotoAlbumModel(3, 1);
+
+    for (IPhotoAlbum album : new IPhotoAlbum[] {everyKeyframe, fewKeyframes}) {
+      album.addShape(album.createShape("rectangle", "a", 0, 0, 1, 1, 0, 0, 0));
+      album.addShape(album.createShape("oval", "b", 5, 5, 2, 2, 10, 10, 10));
+      album.addShape(album.createShape("rectangle", "c", 9, 9, 3, 3, 20, 20, 20));
+      album.takeSnapshot("start");
+      album.moveShape("a", 1, 1);
+      album.takeSnapshot("moved a");
+      album.removeShape("b");
+      album.addShape(album.createShape("oval", "d", 7, 7, 4, 4, 30, 30, 30));
+      album.addShape(album.createShape("oval", "b", 6, 6, 2, 2, 10, 10, 10));
+      album.takeSnapshot("b added again after d");
+      album.changeShapeColor("c", 255, 0, 0);
+      album.setShapeSize("d", 8, 8);
+      album.removeShape("a");
+      album.takeSnapshot("changed c and d, removed a");
+      album.takeSnapshot("nothing changed");
+    }
+
+    // Look snapshots up out of order so that some are rebuilt from the keyframe
+    for (int i : new int[] {4, 1, 3, 0, 2, 4}) {
+      assertEquals(everyKeyframe.getSnapshots().get(i).getShapes().toString(),
+              fewKeyframes.getSnapshots().get(i).getShapes().toString());
+    }
+    assertEquals("[Name: c\nType: rectangle\nMin corner: (9.0, 9.0), Width: 3.0, Height: 3.0, "
+            + "Color: (255,0,0), Name: d\nType: oval\nCenter: (7.0, 7.0), X radius: 8.0, "
+            + "Y radius: 8.0, Color: (30,30,30), Name: b\nType: oval\nCenter: (6.0, 6.0), "
+            + "X radius: 2.0, Y radius: 2.0, Color: (10,10,10)]",
+            fewKeyframes.getSnapshots().get(4).getShapes().toString());
+  }
+
+  /**
+   * Negative testing for constructor. Keyframe interval less than 1.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidKeyframeInterval() {
+    new ShapesPhotoAlbumModel(0, 10);
+  }
+
   /**
    * Positive testing for getSnapshots() method.
    */
@@ -680,6 +774,71 @@ public class IPhotoAlbumTest {
             + "Y radius: 1000.0, Color: (0,255,252)\n]", album3.getSnapshots().toString());
   }
 
+  /**
+   * Positive testing for getSnapshotStore() method. Ensure snapshots can be looked up by position
+   * and by ID, and that the list view reflects snapshots taken after it was created.
+   */
+  @Test
+  public void testGetSnapshotStore() {
+    ISnapshotStore store1 = album1.getSnapshotStore();
+    assertEquals(0, store1.size());
+    assertEquals("[]", store1.asList().toString());
+    assertNull(store1.get("not an ID"));
+    assertEquals(-1, store1.indexOf("not an ID"));
+
+    album3.takeSnapshot("Second selfie");
+    ISnapshotStore store3 = album3.getSnapshotStore();
+    List<Snapshot> view3 = store3.asList();
+    assertEquals(2, store3.size());
+    assertEquals(2, view3.size());
+    assertEquals("Set up", store3.get(0).getDescription());
+    assertEquals("Second selfie", store3.get(1).getDescription());
+    assertEquals(store3.get(1).getID(), store3.getID(1));
+    assertEquals("Second selfie", store3.get(store3.getID(1)).getDescription());
+    assertEquals(1, store3.indexOf(store3.getID(1)));
+
+    album3.takeSnapshot("Third selfie");
+    assertEquals(3, store3.size());
+    assertEquals(3, view3.size());
+    assertEquals("Third selfie", view3.get(2).getDescription());
+  }
+
+  /**
+   * Negative testing for getSnapshotStore() method. No snapshot at the given position.
+   */
+  @Test (expected = IndexOutOfBoundsException.class)
+  public void testInvalidSnapshotStoreIndex() {
+    album3.getSnapshotStore().get(1);
+  }
+
+  /**
+   * Positive testing for snapshot IDs. Snapshots taken back to back, within the same tick of the
+   * clock, still get distinct IDs in the order they were taken, so each can be looked up by ID.
+   */
+  @Test
+  public void testSnapshotIDsDistinct() {
+    for (int i = 0; i < 1000; i++) {
+      album1.takeSnapshot("selfie " + i);
+    }
+    ISnapshotStore store1 = album1.getSnapshotStore();
+    for (int i = 0; i < store1.size(); i++) {
+      assertEquals(i, store1.indexOf(store1.getID(i)));
+      assertEquals("selfie " + i, store1.get(store1.getID(i)).getDescription());
+      if (i > 0) {
+        assertTrue(LocalDateTime.parse(store1.getID(i))
+                .isAfter(LocalDateTime.parse(store1.getID(i - 1))));
+      }
+    }
+  }
+
+  /**
+   * Negative testing for getSnapshots() method. List of snapshots is read-only.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testSnapshotsReadOnly() {
+    album3.getSnapshots().remove(0);
+  }
+
   /**
    * Positive testing for getShapes() method.
    */
@@ -697,6 +856,102 @@ public class IPhotoAlbumTest {
             album3.getShapes().toString());
   }
 
+  /**
+   * Positive testing for getShapesView() method. Ensure the view follows changes made to the model.
+   */
+  @Test
+  public void testGetShapesView() {
+    assertEquals("[]", album1.getShapesView().toString());
+
+    Collection<IShape> view2 = album2.getShapesView();
+    assertEquals(album2.getShapes().toString(), view2.toString());
+    assertSame(view2, album2.getShapesView());
+
+    album2.moveShape("r1", 7, 8);
+    album2.removeShape("o1");
+    assertEquals("[Name: r1\nType: rectangle\nMin corner: (7.0, 8.0), Width: 4.0, "
+            + "Height: 4.0, Color: (0,0,0)]", view2.toString());
+  }
+
+  /**
+   * Negative testing for getShapesView() method. Shapes in the view cannot be changed.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testShapesViewReadOnly() {
+    album2.getShapesView().iterator().next().setColor(1, 2, 3);
+  }
+
+  /**
+   * Negative testing for getShapesView() method. The view cannot be changed.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testShapesViewUnmodifiable() {
+    album2.getShapesView().clear();
+  }
+
+  /**
+   * Positive testing for getShapesInRegion() method. Ensure the index follows shapes as they are
+   * added, moved, resized, and removed.
+   */
+  @Test
+  public void testGetShapesInRegion() {
+    assertEquals("[]", album1.getShapesInRegion(-1000, -1000, 2000, 2000).toString());
+
+    album1.addShape(album1.createShape("rectangle", "a", 0, 0, 10, 10, 0, 0, 0));
+    album1.addShape(album1.createShape("oval", "b", 500, 500, 20, 20, 0, 0, 0));
+    album1.addShape(album1.createShape("rectangle", "c", 5, 5, 100000, 100000, 0, 0, 0));
+    assertEquals("[a, c]", this.names(album1.getShapesInRegion(0, 0, 10, 10)));
+    assertEquals("[b, c]", this.names(album1.getShapesInRegion(480, 480, 0, 0)));
+    assertEquals("[a, b, c]", this.names(album1.getShapesInRegion(-5, -5, 600, 600)));
+    assertEquals("[]", this.names(album1.getShapesInRegion(-100, -100, 50, 50)));
+
+    album1.moveShape("a", 1000, 1000);
+    album1.setShapeSize("b", 1, 1);
+    assertEquals("[c]", this.names(album1.getShapesInRegion(480, 480, 10, 10)));
+    assertEquals("[a, c]", this.names(album1.getShapesInRegion(1005, 1005, 0, 0)));
+
+    album1.removeShape("c");
+    assertEquals("[a]", this.names(album1.getShapesInRegion(1005, 1005, 0, 0)));
+    album1.reset();
+    assertEquals("[]", this.names(album1.getShapesInRegion(-5, -5, 2000, 2000)));
+  }
+
+  /**
+   * Positive testing for getShapeAt() method. The shape added last is on top.
+   */
+  @Test
+  public void testGetShapeAt() {
+    assertNull(album1.getShapeAt(0, 0));
+
+    album1.addShape(album1.createShape("rectangle", "bottom", 0, 0, 100, 100, 0, 0, 0));
+    album1.addShape(album1.createShape("oval", "top", 50, 50, 10, 10, 0, 0, 0));
+    assertEquals("bottom", album1.getShapeAt(0, 0).getName());
+    assertEquals("top", album1.getShapeAt(50, 50).getName());
+    assertNull(album1.getShapeAt(101, 50));
+
+    // Re-added shapes go back on top
+    album1.removeShape("bottom");
+    album1.addShape(album1.createShape("rectangle", "bottom", 0, 0, 100, 100, 0, 0, 0));
+    assertEquals("bottom", album1.getShapeAt(50, 50).getName());
+  }
+
+  /**
+   * Negative testing for getShapesInRegion() method. Negative width.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidGetShapesInRegion() {
+    album1.getShapesInRegion(0, 0, -1, 10);
+  }
+
+  /**
+   * A helper method that returns the names of the given shapes.
+   * @param shapes (List</IShape>) the shapes.
+   * @return (String) names of the shapes as a list.
+   */
+  private String names(List<IShape> shapes) {
+    return shapes.stream().map(IShape::getName).collect(Collectors.toList()).toString();
+  }
+
   /**
    * Positive testing for getModelState() method.
    */
@@ -751,4 +1006,120 @@ public class IPhotoAlbumTest {
             + "Information:\nName: O\nType: oval\nCenter: (-500.0, -100.0), X radius: 60.0, Y radius:"
             + " 30.0, Color: (99,78,6)\n\n", album1.getModelState());
   }
-}
\ No newline at end of file
+
+  /**
+   * Positive testing for writeModelState() method. Ensure it writes the same as getModelState().
+   */
+  @Test
+  public void testWriteModelState() throws IOException {
+    StringWriter out1 = new StringWriter();
+    album1.writeModelState(out1);
+    assertEquals("List of snapshots taken before reset: []\n\nPrinting Snapshots\n",
+            out1.toString());
+
+    album3.moveShape("o3", 4, 4);
+    album3.takeSnapshot("Moved o3");
+    StringWriter out3 = new StringWriter();
+    album3.writeModelState(out3);
+    assertEquals(album3.getModelState(), out3.toString());
+  }
+
+  /**
+   * Positive testing for setSnapshotWriter() method. Snapshots go to the writer as they are taken
+   * instead of being saved, until the writer is taken away again.
+   */
+  @Test
+  public void testSetSnapshotWriter() {
+    List<Snapshot> written = new ArrayList<>();
+    album2.setSnapshotWriter(written::add);
+    album2.takeSnapshot("first");
+    album2.moveShape("r1", 5, 6);
+    album2.removeShape("o1");
+    album2.takeSnapshot(null);
+    assertEquals(0, album2.getSnapshots().size());
+    assertEquals(2, written.size());
+    assertEquals("first", written.get(0).getDescription());
+    assertEquals(2, written.get(0).getShapes().size());
+    assertEquals("", written.get(1).getDescription());
+    assertEquals(1, written.get(1).getShapes().size());
+    assertEquals("Min corner: (5.0, 6.0), Width: 4.0, Height: 4.0",
+            written.get(1).getShapes().get(0).getBounds().toString());
+
+    // Back to saving snapshots, with nothing left over from the written ones
+    album2.setSnapshotWriter(null);
+    album2.setShapeSize("r1", 1, 1);
+    album2.takeSnapshot("saved");
+    assertEquals(1, album2.getSnapshots().size());
+    assertEquals(written.get(1).getShapes().get(0).getName(),
+            album2.getSnapshots().get(0).getShapes().get(0).getName());
+    assertEquals(2, written.size());
+  }
+
+  /**
+   * Negative testing for setSnapshotWriter() method. A snapshot that cannot be written makes
+   * takeSnapshot() fail.
+   */
+  @Test (expected = UncheckedIOException.class)
+  public void testSnapshotWriterFails() {
+    album2.setSnapshotWriter(snapshot -> {
+      throw new IOException("Disk full");
+    });
+    album2.takeSnapshot("lost");
+  }
+
+  /**
+   * Positive testing for getShapeID() method and the methods that take shape IDs. IDs stay the
+   * same, and changing a shape by ID is the same as changing it by name.
+   */
+  @Test
+  public void testShapeIDs() {
+    int r1ID = album2.getShapeID("r1");
+    int o1ID = album2.getShapeID("o1");
+    assertEquals(r1ID, album2.getShapeID("r1"));
+    assertNotEquals(r1ID, o1ID);
+
+    album2.moveShape(r1ID, 5, 6);
+    album2.setShapeSize(r1ID, 7, 8);
+    album2.changeShapeColor(o1ID, 1, 2, 3);
+    album2.takeSnapshot("By ID");
+    assertEquals("Min corner: (5.0, 6.0), Width: 7.0, Height: 8.0",
+            album2.getSnapshots().get(0).getShapes().get(0).getBounds().toString());
+    assertEquals(2, album2.getSnapshots().get(0).getShapes().get(1).getColor().getGreen());
+
+    // Removed shape, and shape changed then removed, are left out of the next snapshot
+    album2.moveShape(o1ID, 0, 0);
+    album2.removeShape(o1ID);
+    album2.takeSnapshot("Removed by ID");
+    assertEquals("[r1]", names(album2.getSnapshots().get(1).getShapes()));
+
+    // Name given an ID before its shape is added, and IDs kept after reset
+    int laterID = album2.getShapeID("later");
+    album2.reset();
+    assertEquals(r1ID, album2.getShapeID("r1"));
+    album2.addShape(album2.createShape("oval", "later", 0, 0, 1, 1, 0, 0, 0));
+    album2.moveShape(laterID, 9, 9);
+    assertEquals("(9.0, 9.0)", album2.getShapes().get(0).getPoint().toString());
+  }
+
+  /**
+   * Testing the methods that take shape IDs with IDs that have no shape. Nothing changes.
+   */
+  @Test
+  public void testUnknownShapeIDs() {
+    String before = album2.getShapes().toString();
+    int unusedID = album2.getShapeID("nothing");
+    album2.moveShape(unusedID, 1, 1);
+    album2.setShapeSize(-1, 1, 1);
+    album2.changeShapeColor(1000, 1, 1, 1);
+    album2.removeShape(unusedID + 1);
+    assertEquals(before, album2.getShapes().toString());
+  }
+
+  /**
+   * Negative testing for getShapeID() method. Name cannot be null.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidGetShapeID() {
+    album1.getShapeID(null);
+  }
+}
@@ -3,6 +3,9 @@ import static org.junit.Assert.assertEquals;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import model.IShape;
 import model.Oval;
 import model.Rectangle;
@@ -902,4 +905,84 @@ public class IShapeTest {
     assertEquals("\t\t<ellipse id=\"*****\" cx=\"200.0\" cy=\"-100.0\" rx=\"30.0\" "
             + "ry=\"10.0\" fill=\"rgb(77,255,255)\">\n\t\t</ellipse>\n", o4.toSVG());
   }
-}
\ No newline at end of file
+
+  /**
+   * Positive testing for appendSVG() method. Writes the same markup as toSVG(), whether or not
+   * the output is a StringBuilder, or with the given id instead of the name.
+   */
+  @Test
+  public void testAppendSVG() throws IOException {
+    for (IShape each : new IShape[] {r1, r2, r3, r4, o1, o2, o3, o4}) {
+      StringBuilder builder = new StringBuilder();
+      each.appendSVG(builder);
+      assertEquals(each.toSVG(), builder.toString());
+      StringWriter writer = new StringWriter();
+      each.appendSVG(writer);
+      assertEquals(each.toSVG(), writer.toString());
+    }
+
+    // Given id instead of the name, or none at all
+    StringBuilder withID = new StringBuilder();
+    r3.appendSVG(withID, "state7");
+    o2.appendSVG(withID, null);
+    assertEquals("\t\t<rect id=\"state7\" x=\"100978.0\" y=\"1.0\" width=\"25.0\" "
+            + "height=\"101.0\" fill=\"rgb(0,0,255)\">\n\t\t</rect>\n"
+            + "\t\t<ellipse cx=\"2.0\" cy=\"94562.0\" rx=\"15.0\" "
+            + "ry=\"900.0\" fill=\"rgb(128,128,128)\">\n\t\t</ellipse>\n", withID.toString());
+
+    // Smallest and largest numbers
+    StringWriter writer = new StringWriter();
+    new Rectangle("r", Integer.MIN_VALUE, Integer.MAX_VALUE, 10, 9, 100, 0, 255)
+            .appendSVG(writer);
+    assertEquals("\t\t<rect id=\"r\" x=\"-2147483648.0\" y=\"2147483647.0\" width=\"10.0\" "
+            + "height=\"9.0\" fill=\"rgb(100,0,255)\">\n\t\t</rect>\n", writer.toString());
+  }
+
+  /**
+   * Positive testing for appendCompactSVG() method. Self-closing elements with whole numbers and
+   * the fill color as a CSS class, and nothing around them.
+   */
+  @Test
+  public void testAppendCompactSVG() throws IOException {
+    StringBuilder compact = new StringBuilder();
+    r4.appendCompactSVG(compact, r4.getName());
+    o3.appendCompactSVG(compact, null);
+    assertEquals("<rect id=\"$!0r1\" x=\"-101\" y=\"500\" width=\"9855634\" height=\"5\" "
+            + "class=\"c80331a\"/><ellipse cx=\"-4598\" cy=\"-5\" rx=\"23456\" ry=\"23\" "
+            + "class=\"c8033ff\"/>", compact.toString());
+
+    StringWriter writer = new StringWriter();
+    r4.appendCompactSVG(writer, r4.getName());
+    o3.appendCompactSVG(writer, null);
+    assertEquals(compact.toString(), writer.toString());
+  }
+
+  /**
+   * Positive testing for getBounds() method.
+   */
+  @Test
+  public void testGetBounds() {
+    // Rectangle bounds start at its min corner
+    assertEquals("Min corner: (0.0, 0.0), Width: 0.0, Height: 0.0", r1.getBounds().toString());
+    assertEquals("Min corner: (100978.0, 1.0), Width: 25.0, Height: 101.0",
+            r3.getBounds().toString());
+
+    // Oval bounds stretch the radius from the center in each direction
+    assertEquals("Min corner: (0.0, 0.0), Width: 0.0, Height: 0.0", o1.getBounds().toString());
+    assertEquals("Min corner: (170.0, -110.0), Width: 60.0, Height: 20.0",
+            o4.getBounds().toString());
+
+    // Bounds follow changes to the shape
+    r3.setPoint(5, 6);
+    r3.setSize(7, 8);
+    assertEquals("Min corner: (5.0, 6.0), Width: 7.0, Height: 8.0", r3.getBounds().toString());
+    o4.setSize(1, 2);
+    assertEquals("Min corner: (199.0, -102.0), Width: 2.0, Height: 4.0",
+            o4.getBounds().toString());
+
+    // Bounds too large for an int are cut off
+    IShape huge = new Oval("huge", 0, 0, Integer.MAX_VALUE, 1, 0, 0, 0);
+    assertEquals(-Integer.MAX_VALUE, huge.getBounds().getX());
+    assertEquals(Integer.MAX_VALUE, huge.getBounds().getWidth());
+  }
+}
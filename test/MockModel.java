@@ -1,9 +1,14 @@
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import model.IPhotoAlbum;
 import model.IShape;
+import model.ISnapshotStore;
 import model.Snapshot;
+import model.SnapshotWriter;
+import model.SymbolTable;
 
 /**
  * Mock Photo Album model for testing. A MockModel logs the inputs provided to it and returns
@@ -12,6 +17,7 @@ import model.Snapshot;
 public class MockModel implements IPhotoAlbum {
   private StringBuilder log;
   private final String uniqueCode;
+  private final SymbolTable symbols = new SymbolTable();
 
   /**
    * Instantiates mock model to the given log and unique code.
@@ -46,6 +52,37 @@ public class MockModel implements IPhotoAlbum {
     log.append("Change shape color: " + shapeName + ", (" + r + "," + g + "," + b + ")\n");
   }
 
+  @Override
+  public int getShapeID(String shapeName) {
+    return this.symbols.intern(shapeName);
+  }
+
+  @Override
+  public int findShapeID(String shapeName) {
+    // The mock keeps no shapes, so every name is found and each command reaches the log
+    return this.symbols.intern(shapeName);
+  }
+
+  @Override
+  public void removeShape(int shapeID) {
+    this.removeShape(this.symbols.nameOf(shapeID));
+  }
+
+  @Override
+  public void changeShapeColor(int shapeID, int r, int g, int b) {
+    this.changeShapeColor(this.symbols.nameOf(shapeID), r, g, b);
+  }
+
+  @Override
+  public void moveShape(int shapeID, int x, int y) {
+    this.moveShape(this.symbols.nameOf(shapeID), x, y);
+  }
+
+  @Override
+  public void setShapeSize(int shapeID, int sizeX, int sizeY) {
+    this.setShapeSize(this.symbols.nameOf(shapeID), sizeX, sizeY);
+  }
+
   @Override
   public void moveShape(String shapeName, int x, int y) {
     log.append("Move shape: " + shapeName + ", (" + x + "," + y + ")\n");
@@ -67,6 +104,11 @@ public class MockModel implements IPhotoAlbum {
     log.append("Take snapshot: " + description + "\n");
   }
 
+  @Override
+  public void setSnapshotWriter(SnapshotWriter writer) {
+    log.append("Set snapshot writer\n");
+  }
+
   @Override
   public List<Snapshot> getSnapshots() {
     List<Snapshot> mockSnapshots = new ArrayList<>();
@@ -74,13 +116,75 @@ public class MockModel implements IPhotoAlbum {
     return mockSnapshots;
   }
 
+  @Override
+  public ISnapshotStore getSnapshotStore() {
+    List<Snapshot> mockSnapshots = this.getSnapshots();
+    return new ISnapshotStore() {
+      @Override
+      public int size() {
+        return mockSnapshots.size();
+      }
+
+      @Override
+      public Snapshot get(int index) {
+        return mockSnapshots.get(index);
+      }
+
+      @Override
+      public Snapshot get(String id) {
+        int index = this.indexOf(id);
+        return index < 0 ? null : mockSnapshots.get(index);
+      }
+
+      @Override
+      public String getID(int index) {
+        return mockSnapshots.get(index).getID();
+      }
+
+      @Override
+      public int indexOf(String id) {
+        for (int i = 0; i < mockSnapshots.size(); i++) {
+          if (mockSnapshots.get(i).getID().equals(id)) {
+            return i;
+          }
+        }
+        return -1;
+      }
+
+      @Override
+      public List<Snapshot> asList() {
+        return Collections.unmodifiableList(mockSnapshots);
+      }
+    };
+  }
+
   @Override
   public List<IShape> getShapes() {
     return null;
   }
 
+  @Override
+  public Collection<IShape> getShapesView() {
+    return null;
+  }
+
+  @Override
+  public List<IShape> getShapesInRegion(int x, int y, int width, int height) {
+    return null;
+  }
+
+  @Override
+  public IShape getShapeAt(int x, int y) {
+    return null;
+  }
+
   @Override
   public String getModelState() {
     return null;
   }
+
+  @Override
+  public void writeModelState(Appendable out) {
+    return;
+  }
 }
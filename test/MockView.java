@@ -1,7 +1,6 @@
 import java.util.List;
 
 import controller.Features;
-import model.IShape;
 import model.Snapshot;
 import view.GUIView;
 import view.IView;
@@ -56,7 +55,12 @@ public class MockView implements IView, GUIView {
   }
 
   @Override
-  public void paintSnapshot(List<IShape> currentShapes) {
+  public void paintSnapshot(Snapshot snapshot, int index) {
+    return;
+  }
+
+  @Override
+  public void preloadSnapshots(int currentIndex, int direction) {
     return;
   }
 
@@ -1,18 +1,32 @@
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import model.IPhotoAlbum;
+import model.ISnapshotStore;
 import model.ShapesPhotoAlbumModel;
 import model.Snapshot;
+import util.CommandCompiler;
+import util.LoadMode;
 import util.PhotoFileReader;
+import util.PipelineStats;
 
 /**
  * A JUnit test class for the PhotoFileReader class.
@@ -96,4 +110,479 @@ public class PhotoFileReaderTest {
                     + " Information:\nName: myoval\nType: oval\nCenter: (500.0, 400.0), X radius: "
                     + "60.0, Y radius: 30.0, Color: (0,255,1)\n\n", model2.getModelState());
   }
-}
\ No newline at end of file
+
+  /**
+   * Testing parsePhotoFile() method with mixed line endings, mixed case commands, and a line
+   * longer than the reader's buffer.
+   */
+  @Test
+  public void testParseLineEndingsAndCase() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    String longWord = "x".repeat(100000);
+    Files.writeString(file.toPath(), "SHAPE r1 Rectangle 1 2 3 4 5 6 7\r\n\r\n"
+            + "Move r1 -10 +20\rsnapshot  one\ttwo \n" + "snapshot " + longWord);
+
+    IPhotoAlbum model = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file, model).parsePhotoFile();
+    List<Snapshot> snapshots = model.getSnapshots();
+    assertEquals(2, snapshots.size());
+    assertEquals("one two ", snapshots.get(0).getDescription());
+    assertEquals(longWord + " ", snapshots.get(1).getDescription());
+    assertEquals("Min corner: (-10.0, 20.0), Width: 3.0, Height: 4.0",
+            snapshots.get(0).getShapes().get(0).getBounds().toString());
+    assertSame(snapshots.get(0).getShapes().get(0).getName(),
+            snapshots.get(1).getShapes().get(0).getName());
+  }
+
+  /**
+   * Negative testing for parsePhotoFile() method. Values that are not ints are rejected.
+   */
+  @Test(expected = NumberFormatException.class)
+  public void testParseInvalidInt() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "shape r1 rectangle 1 2 3 4 5 6 2147483648\n");
+    new PhotoFileReader(file, new ShapesPhotoAlbumModel()).parsePhotoFile();
+  }
+
+  /**
+   * Testing parsePhotoFile() method when the file is mapped into memory. The model must end up
+   * the same as when the file is read as a stream.
+   */
+  @Test
+  public void testParseMemoryMapped() {
+    IPhotoAlbum mapped = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file2, mapped, LoadMode.MEMORY_MAPPED).parsePhotoFile();
+    reader2.parsePhotoFile();
+    assertSameAlbum(model2, mapped);
+
+    // Empty file
+    IPhotoAlbum empty = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file1, empty, LoadMode.MEMORY_MAPPED).parsePhotoFile();
+    assertEquals(0, empty.getSnapshots().size());
+  }
+
+  /**
+   * Negative testing for the PhotoFileReader constructor. Load mode cannot be null.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullLoadMode() {
+    new PhotoFileReader(file2, model2, null);
+  }
+
+  /**
+   * Testing parsePhotoFile() method when chunks of the file are parsed in parallel. The model must
+   * end up the same as when the file is read as a stream, with commands applied in order.
+   */
+  @Test
+  public void testParseParallel() throws IOException {
+    File file = largeFile();
+
+    IPhotoAlbum stream = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file, stream).parsePhotoFile();
+    IPhotoAlbum parallel = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file, parallel, LoadMode.PARALLEL).parsePhotoFile();
+    assertEquals(20, parallel.getSnapshots().size());
+    assertSameAlbum(stream, parallel);
+
+    // Empty file
+    IPhotoAlbum empty = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file1, empty, LoadMode.PARALLEL).parsePhotoFile();
+    assertEquals(0, empty.getSnapshots().size());
+  }
+
+  /**
+   * Testing parsePhotoFile() method when reading and applying commands run on separate threads.
+   * The model must end up the same as when the file is read as a stream, and the queue between
+   * the two must be reported.
+   */
+  @Test
+  public void testParsePipelined() throws IOException {
+    File file = largeFile();
+    IPhotoAlbum stream = new ShapesPhotoAlbumModel();
+    PhotoFileReader streamReader = new PhotoFileReader(file, stream);
+    streamReader.parsePhotoFile();
+    assertNull(streamReader.getPipelineStats());
+
+    IPhotoAlbum pipelined = new ShapesPhotoAlbumModel();
+    PhotoFileReader pipelinedReader = new PhotoFileReader(file, pipelined, LoadMode.PIPELINED);
+    pipelinedReader.parsePhotoFile();
+    assertSameAlbum(stream, pipelined);
+
+    PipelineStats stats = pipelinedReader.getPipelineStats();
+    assertEquals(40, stats.getBatches());
+    assertTrue(stats.getMaxOccupancy() >= 1);
+    assertTrue(stats.getMaxOccupancy() <= stats.getCapacity());
+    assertTrue(stats.getAverageOccupancy() >= 1);
+  }
+
+  /**
+   * Testing parsePhotoFile() method when loading compiled files. The first load compiles the file
+   * into the cache, later loads read the compiled file, and changing the file compiles it again.
+   */
+  @Test
+  public void testParseCompiled() throws IOException {
+    File cache = Files.createTempDirectory("cache").toFile();
+    cache.deleteOnExit();
+    CommandCompiler compiler = new CommandCompiler(cache);
+    File compiled = compiler.getCompiledFile(file2);
+    compiled.deleteOnExit();
+    assertFalse(compiled.exists());
+
+    // First load compiles the file while applying it
+    IPhotoAlbum first = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file2, first, LoadMode.COMPILED, cache).parsePhotoFile();
+    reader2.parsePhotoFile();
+    assertSameAlbum(model2, first);
+    assertTrue(compiled.isFile());
+    assertTrue(compiled.length() < file2.length());
+
+    // Later loads read the compiled file
+    IPhotoAlbum second = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file2, second, LoadMode.COMPILED, cache).parsePhotoFile();
+    assertSameAlbum(model2, second);
+    assertEquals(compiled, compiler.compile(file2));
+
+    // A large file with \r\n line endings and negative numbers
+    File file = largeFile();
+    File largeCompiled = compiler.compile(file);
+    largeCompiled.deleteOnExit();
+    assertNotEquals(compiled, largeCompiled);
+    IPhotoAlbum stream = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file, stream).parsePhotoFile();
+    IPhotoAlbum large = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file, large, LoadMode.COMPILED, cache).parsePhotoFile();
+    assertSameAlbum(stream, large);
+  }
+
+  /**
+   * Testing parsePhotoFile() method when the cached compiled file is cut short or corrupt. The
+   * damaged file is not loaded; the text is compiled into the cache again instead.
+   */
+  @Test
+  public void testParseDamagedCompiled() throws IOException {
+    File cache = Files.createTempDirectory("cache").toFile();
+    cache.deleteOnExit();
+    File compiled = new CommandCompiler(cache).compile(file2);
+    compiled.deleteOnExit();
+    byte[] whole = Files.readAllBytes(compiled.toPath());
+    reader2.parsePhotoFile();
+
+    // Cut short in the middle of the commands
+    Files.write(compiled.toPath(), Arrays.copyOf(whole, whole.length / 2));
+    IPhotoAlbum cut = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file2, cut, LoadMode.COMPILED, cache).parsePhotoFile();
+    assertSameAlbum(model2, cut);
+    assertArrayEquals(whole, Files.readAllBytes(compiled.toPath()));
+
+    // An unknown command after the header
+    byte[] corrupt = whole.clone();
+    corrupt[5] = (byte) 99;
+    Files.write(compiled.toPath(), corrupt);
+    IPhotoAlbum damaged = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file2, damaged, LoadMode.COMPILED, cache).parsePhotoFile();
+    assertSameAlbum(model2, damaged);
+    assertArrayEquals(whole, Files.readAllBytes(compiled.toPath()));
+  }
+
+  /**
+   * Negative testing for compiling a file. Lines that cannot be parsed stop compiling, and nothing
+   * is cached.
+   */
+  @Test
+  public void testCompileInvalidFile() throws IOException {
+    File cache = Files.createTempDirectory("cache").toFile();
+    cache.deleteOnExit();
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "shape r1 rectangle 1 2 3 4 5 6 7\nmove r1 one 2\n");
+
+    CommandCompiler compiler = new CommandCompiler(cache);
+    try {
+      compiler.compile(file);
+    } catch (NumberFormatException e) {
+      assertFalse(compiler.getCompiledFile(file).exists());
+      assertEquals(0, cache.list().length);
+      return;
+    }
+    throw new AssertionError("Expected NumberFormatException");
+  }
+
+  /**
+   * Testing parsePhotoFile() method with an index of the snapshots. Snapshots built from the file
+   * on demand, in any order, must match the ones taken when the file is read as a stream, and an
+   * index file saved by the first load is used by the next one.
+   */
+  @Test
+  public void testParseIndexed() throws IOException {
+    File large = largeFile();
+    File index = new File(large.getPath() + ".index");
+    index.deleteOnExit();
+    IPhotoAlbum streamed = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(large, streamed).parsePhotoFile();
+
+    IPhotoAlbum indexed = new ShapesPhotoAlbumModel();
+    PhotoFileReader reader = new PhotoFileReader(large, indexed, LoadMode.INDEXED);
+    reader.parsePhotoFile();
+    assertTrue(index.isFile());
+    assertEquals(0, indexed.getSnapshots().size());
+    assertEquals(streamed.getShapes().toString(), indexed.getShapes().toString());
+    ISnapshotStore snapshots = reader.getSnapshotStore();
+    assertEquals(20, snapshots.size());
+
+    // Every snapshot has an ID of its own, even when indexed within the same clock tick
+    for (int i = 0; i < snapshots.size(); i++) {
+      assertEquals(i, snapshots.indexOf(snapshots.getID(i)));
+    }
+    for (int i : new int[] {19, 3, 4, 0, 18, 7, 6}) {
+      assertEquals(streamed.getSnapshots().get(i).getDescription(),
+              snapshots.get(i).getDescription());
+      assertEquals(streamed.getSnapshots().get(i).getShapes().toString(),
+              snapshots.get(i).getShapes().toString());
+    }
+
+    // Opening again reads the index file, so IDs stay the same
+    IPhotoAlbum reopened = new ShapesPhotoAlbumModel();
+    PhotoFileReader reopenedReader = new PhotoFileReader(large, reopened, LoadMode.INDEXED);
+    reopenedReader.parsePhotoFile();
+    assertEquals(streamed.getShapes().toString(), reopened.getShapes().toString());
+    assertEquals(snapshots.getID(12), reopenedReader.getSnapshotStore().getID(12));
+    assertEquals(12, reopenedReader.getSnapshotStore().indexOf(snapshots.getID(12)));
+    assertEquals(snapshots.get(12).toString(),
+            reopenedReader.getSnapshotStore().get(12).toString());
+  }
+
+  /**
+   * Testing parsePhotoFile() method with an index of the snapshots when the index file cannot be
+   * saved next to the file. The index file goes in the cache directory instead, and is used by
+   * the next load.
+   */
+  @Test
+  public void testParseIndexedFallsBackToCache() throws IOException {
+    File large = largeFile();
+    File cache = Files.createTempDirectory("cache").toFile();
+    cache.deleteOnExit();
+
+    // A directory in the way of the index file keeps it from being saved there
+    File blocked = new File(large.getPath() + ".index");
+    File inside = new File(blocked, "taken");
+    assertTrue(blocked.mkdir());
+    assertTrue(inside.createNewFile());
+    blocked.deleteOnExit();
+    inside.deleteOnExit();
+
+    IPhotoAlbum streamed = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(large, streamed).parsePhotoFile();
+    IPhotoAlbum indexed = new ShapesPhotoAlbumModel();
+    PhotoFileReader reader = new PhotoFileReader(large, indexed, LoadMode.INDEXED, cache);
+    reader.parsePhotoFile();
+    assertEquals(streamed.getShapes().toString(), indexed.getShapes().toString());
+    assertEquals(streamed.getSnapshots().get(5).getShapes().toString(),
+            reader.getSnapshotStore().get(5).getShapes().toString());
+    File[] cached = cache.listFiles();
+    assertEquals(1, cached.length);
+    assertTrue(cached[0].getName().endsWith(".index"));
+    cached[0].deleteOnExit();
+
+    // Opening again reads the index file in the cache, so IDs stay the same
+    IPhotoAlbum reopened = new ShapesPhotoAlbumModel();
+    PhotoFileReader reopenedReader = new PhotoFileReader(large, reopened, LoadMode.INDEXED,
+            cache);
+    reopenedReader.parsePhotoFile();
+    assertEquals(streamed.getShapes().toString(), reopened.getShapes().toString());
+    assertEquals(reader.getSnapshotStore().getID(12), reopenedReader.getSnapshotStore().getID(12));
+  }
+
+  /**
+   * Testing parsePhotoFile() method when commands that make no difference are left out. Only
+   * the last change of each kind to a shape reaches the model, changes to a shape added since the
+   * last snapshot go into the command adding it, and a shape added and removed again never
+   * reaches the model.
+   */
+  @Test
+  public void testParseOptimized() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "shape r1 rectangle 1 2 3 4 5 6 7\n"
+            + "move r1 10 10\nmove r1 20 20\ncolor r1 1 1 1\n"
+            + "shape gone oval 1 1 1 1 1 1 1\nmove gone 5 5\nremove gone\n"
+            + "shape r1 oval 9 9 9 9 9 9 9\nsquare s1 1 1 1 1 1 1 1\nmove nobody 1 1\n"
+            + "snapshot one\n"
+            + "move r1 30 30\nresize r1 8 8\nresize r1 6 6\nmove r1 40 40\ncolor r1 2 2 2\n"
+            + "snapshot two\n"
+            + "move r1 50 50\nremove r1\nshape r1 oval 1 1 1 1 1 1 1\nmove r1 7 7\n"
+            + "snapshot three\n");
+    StringBuilder log = new StringBuilder();
+    new PhotoFileReader(file, new MockModel(log, "code"), LoadMode.STREAM,
+            CommandCompiler.DEFAULT_CACHE_DIRECTORY, true).parsePhotoFile();
+    assertEquals("Create shape: rectangle, r1, 20, 20, 3, 4, 1, 1, 1\nAdd shape\n"
+            + "Take snapshot: one \n"
+            + "Move shape: r1, (40,40)\nChange shape size: r1, size x: 6, size y: 6\n"
+            + "Change shape color: r1, (2,2,2)\nTake snapshot: two \n"
+            + "Remove shape: r1\nCreate shape: oval, r1, 7, 7, 1, 1, 1, 1, 1\nAdd shape\n"
+            + "Take snapshot: three \n", log.toString());
+
+    // Every load mode ends up with the same album as without leaving anything out
+    IPhotoAlbum expected = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file, expected).parsePhotoFile();
+    File large = largeFile();
+    IPhotoAlbum expectedLarge = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(large, expectedLarge).parsePhotoFile();
+    File cache = Files.createTempDirectory("cache").toFile();
+    cache.deleteOnExit();
+    for (LoadMode mode : new LoadMode[] {LoadMode.STREAM, LoadMode.MEMORY_MAPPED,
+        LoadMode.PARALLEL, LoadMode.PIPELINED, LoadMode.COMPILED, LoadMode.PARTITIONED}) {
+      IPhotoAlbum optimized = new ShapesPhotoAlbumModel();
+      new PhotoFileReader(file, optimized, mode, cache, true).parsePhotoFile();
+      assertSameAlbum(expected, optimized);
+      IPhotoAlbum optimizedLarge = new ShapesPhotoAlbumModel();
+      new PhotoFileReader(large, optimizedLarge, mode, cache, true).parsePhotoFile();
+      assertSameAlbum(expectedLarge, optimizedLarge);
+    }
+    for (File each : cache.listFiles()) {
+      each.deleteOnExit();
+    }
+  }
+
+  /**
+   * Negative testing for parsePhotoFile() method when commands that make no difference are left
+   * out. Commands the model rejects still reach it.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseOptimizedInvalidColor() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "shape r1 rectangle 1 2 3 4 5 6 7\ncolor r1 1 256 1\n"
+            + "color r1 1 1 1\nsnapshot\n");
+    new PhotoFileReader(file, new ShapesPhotoAlbumModel(), LoadMode.STREAM,
+            CommandCompiler.DEFAULT_CACHE_DIRECTORY, true).parsePhotoFile();
+  }
+
+  /**
+   * Testing parsePhotoFile() method when commands are applied partitioned by shape. Shapes that
+   * are removed and added again, names that are taken, unknown types, and changes to missing
+   * shapes end up the same as when the commands are applied one by one, in the same order.
+   */
+  @Test
+  public void testParsePartitioned() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "shape a rectangle 1 2 3 4 5 6 7\n"
+            + "shape b oval 1 1 1 1 1 1 1\nmove a 10 10\nshape a oval 9 9 9 9 9 9 9\n"
+            + "remove b\nshape b rectangle 2 2 2 2 2 2 2\nsquare s 1 1 1 1 1 1 1\n"
+            + "move nobody 1 1\nshape c oval 3 3 3 3 3 3 3\nsnapshot one\n"
+            + "remove a\nresize c 8 8\nshape a oval 4 4 4 4 4 4 4\ncolor b 9 9 9\n"
+            + "remove c\nsnapshot two\nmove a 5 5\nremove b\n");
+    File large = largeFile();
+    for (File each : new File[] {file, large}) {
+      IPhotoAlbum expected = new ShapesPhotoAlbumModel();
+      new PhotoFileReader(each, expected).parsePhotoFile();
+      IPhotoAlbum partitioned = new ShapesPhotoAlbumModel();
+      new PhotoFileReader(each, partitioned, LoadMode.PARTITIONED).parsePhotoFile();
+      assertSameAlbum(expected, partitioned);
+    }
+  }
+
+  /**
+   * Negative testing for parsePhotoFile() method when commands are applied partitioned by shape.
+   * Commands the model rejects still reach it.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testParsePartitionedInvalidSize() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "shape r1 rectangle 1 2 3 4 5 6 7\nresize r1 -1 1\n"
+            + "resize r1 1 1\nsnapshot\n");
+    new PhotoFileReader(file, new ShapesPhotoAlbumModel(), LoadMode.PARTITIONED)
+            .parsePhotoFile();
+  }
+
+  /**
+   * Testing readAppended() method. Only complete lines appended since the last call are applied,
+   * and the album ends up the same as when the whole file is read at once.
+   */
+  @Test
+  public void testReadAppended() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    IPhotoAlbum followed = new ShapesPhotoAlbumModel();
+    PhotoFileReader follower = new PhotoFileReader(file, followed);
+    assertFalse(follower.readAppended());
+
+    Files.writeString(file.toPath(), "shape r1 rectangle 1 2 3 4 5 6 7\r\nsnapshot one\r");
+    assertTrue(follower.readAppended());
+    assertEquals(1, followed.getSnapshots().size());
+    assertFalse(follower.readAppended());
+
+    // The last line is not read until it is complete
+    Files.writeString(file.toPath(), "\nmove r1 10 20\nsnap", StandardOpenOption.APPEND);
+    assertTrue(follower.readAppended());
+    assertEquals(1, followed.getSnapshots().size());
+    assertEquals("Min corner: (10.0, 20.0), Width: 3.0, Height: 4.0",
+            followed.getShapes().get(0).getBounds().toString());
+    Files.writeString(file.toPath(), "shot two\n", StandardOpenOption.APPEND);
+    assertTrue(follower.readAppended());
+    assertEquals(2, followed.getSnapshots().size());
+    assertEquals("two ", followed.getSnapshots().get(1).getDescription());
+
+    IPhotoAlbum whole = new ShapesPhotoAlbumModel();
+    new PhotoFileReader(file, whole).parsePhotoFile();
+    assertSameAlbum(whole, followed);
+  }
+
+  /**
+   * Negative testing for readAppended() method. A followed file cannot get shorter.
+   */
+  @Test(expected = IOException.class)
+  public void testReadAppendedTruncated() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    Files.writeString(file.toPath(), "shape r1 rectangle 1 2 3 4 5 6 7\n");
+    PhotoFileReader follower = new PhotoFileReader(file, new ShapesPhotoAlbumModel());
+    follower.readAppended();
+    Files.writeString(file.toPath(), "\n");
+    follower.readAppended();
+  }
+
+  /**
+   * A helper method that writes a command file large enough to be split into several chunks, with
+   * \r\n line endings.
+   * @return (File) the command file.
+   * @throws IOException if the file cannot be written.
+   */
+  private static File largeFile() throws IOException {
+    File file = File.createTempFile("album", ".txt");
+    file.deleteOnExit();
+    StringBuilder commands = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      commands.append("shape s").append(i % 50).append(" oval ").append(i)
+              .append(" 2 3 4 5 6 7\r\n");
+      commands.append("move s").append(i % 50).append(' ').append(i).append(" -").append(i)
+              .append("\r\n");
+      if (i % 1000 == 999) {
+        commands.append("remove s").append(i % 7).append("\r\nsnapshot number ").append(i)
+                .append("\r\n");
+      }
+    }
+    Files.writeString(file.toPath(), commands);
+    return file;
+  }
+
+  /**
+   * A helper method that checks that the given albums have the same shapes and snapshots (apart
+   * from IDs and timestamps).
+   * @param expected (IPhotoAlbum) album to compare with.
+   * @param actual (IPhotoAlbum) album to be checked.
+   */
+  private static void assertSameAlbum(IPhotoAlbum expected, IPhotoAlbum actual) {
+    assertEquals(expected.getShapes().toString(), actual.getShapes().toString());
+    assertEquals(expected.getSnapshots().size(), actual.getSnapshots().size());
+    for (int i = 0; i < actual.getSnapshots().size(); i++) {
+      assertEquals(expected.getSnapshots().get(i).getDescription(),
+              actual.getSnapshots().get(i).getDescription());
+      assertEquals(expected.getSnapshots().get(i).getShapes().toString(),
+              actual.getSnapshots().get(i).getShapes().toString());
+    }
+  }
+}
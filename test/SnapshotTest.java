@@ -4,6 +4,8 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -107,6 +109,30 @@ public class SnapshotTest {
     snap1 = new Snapshot("null list", null);
   }
 
+  /**
+   * Positive testing for the constructor that is given an ID. The timestamp comes from the ID,
+   * and the shapes are deep copied.
+   */
+  @Test
+  public void testSnapshotWithID() {
+    List<IShape> shapes = new ArrayList<>();
+    shapes.add(r1);
+    Snapshot restored = new Snapshot("2020-01-02T03:04:05.678", null, shapes);
+    assertEquals("2020-01-02T03:04:05.678", restored.getID());
+    assertEquals("", restored.getDescription());
+    assertTrue(restored.toString().contains("Timestamp: 02-01-2020 03:04:05\n"));
+    assertEquals(1, restored.getShapes().size());
+    assertTrue(restored.getShapes().get(0) != r1);
+  }
+
+  /**
+   * Negative testing for the constructor that is given an ID. The ID must be one given by getID().
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidSnapshotID() {
+    new Snapshot("not an ID", "description", new ArrayList<>());
+  }
+
   /**
    * Positive testing for getID() method. Convert ID back to LocalDateTime and ensure ID is before
    * or equal to current time.
@@ -210,4 +236,18 @@ public class SnapshotTest {
             + "Y radius: 89.0, Color: (0,0,255)\nName: r2\nType: rectangle\nMin corner: "
             + "(1.0, 5.0), Width: 0.0, Height: 0.0, Color: (255,255,120)\n", snap3.toString());
   }
-}
\ No newline at end of file
+
+  /**
+   * Positive testing for appendTo() method. Ensure it writes the same as toString().
+   */
+  @Test
+  public void testAppendTo() throws IOException {
+    StringWriter out = new StringWriter();
+    snap1.appendTo(out);
+    assertEquals(snap1.toString(), out.toString());
+
+    StringBuilder builder = new StringBuilder("start\n");
+    snap3.appendTo(builder);
+    assertEquals("start\n" + snap3.toString(), builder.toString());
+  }
+}
@@ -1,8 +1,13 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -204,4 +209,213 @@ public class WebViewTest {
             + " fill=\"rgb(128,100,78)\">\n\t\t</ellipse>\n\t</svg>\n</div>\n<p>\n</p>\n"
             + "</body>\n</html>\n", web3.toString());
   }
-}
\ No newline at end of file
+
+  /**
+   * Positive testing for startView(), write(), and finishView() methods. Streaming snapshots to
+   * the HTML file gives the same file as producing the whole view at once.
+   */
+  @Test
+  public void testStreamView() throws IOException {
+    File streamed = newOutputFile("streamed");
+    File produced = newOutputFile("produced");
+
+    WebView streamingView = new WebView("Title", streamed.getPath(), "500", "400");
+    streamingView.startView();
+    streamingView.write(snap1);
+    streamingView.write(snap2);
+    streamingView.finishView();
+    assertEquals("", streamingView.toString());
+
+    List<Snapshot> snapshots = new ArrayList<>();
+    snapshots.add(snap1);
+    snapshots.add(snap2);
+    new WebView("Title", produced.getPath(), "500", "400").produceView(snapshots);
+    assertEquals(Files.readString(produced.toPath()), Files.readString(streamed.toPath()));
+  }
+
+  /**
+   * Positive testing for produceView() with more snapshots than are created at once. Snapshots
+   * created on different threads still end up in the order they were given.
+   */
+  @Test
+  public void testProduceViewManySnapshots() throws IOException {
+    File streamed = newOutputFile("streamed");
+    File produced = newOutputFile("produced");
+
+    List<Snapshot> snapshots = new ArrayList<>();
+    List<IShape> shapes = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      shapes.add(new Rectangle("r" + i, i, -i, i, i, i % 256, 0, 0));
+      snapshots.add(new Snapshot("snapshot " + i, shapes));
+    }
+    WebView streamingView = new WebView("Many", streamed.getPath(), "500", "400");
+    streamingView.startView();
+    for (Snapshot each : snapshots) {
+      streamingView.write(each);
+    }
+    streamingView.finishView();
+    WebView producedView = new WebView("Many", produced.getPath(), "500", "400");
+    producedView.produceView(snapshots);
+    assertEquals(Files.readString(streamed.toPath()), producedView.toString());
+    assertEquals(producedView.toString(), Files.readString(produced.toPath()));
+  }
+
+  /**
+   * Positive testing for produceView() when each distinct shape is written only once. Shapes
+   * that look the same as one before are drawn from where that one was defined, and streaming
+   * the snapshots gives the same file.
+   */
+  @Test
+  public void testProduceViewDedupe() throws IOException {
+    File streamed = newOutputFile("streamed");
+    File produced = newOutputFile("produced");
+
+    // Same shapes again, then one of them moved, and a shape that looks like another
+    List<IShape> moved = new ArrayList<>();
+    moved.add(new Rectangle("r1", 0, 0, 0, 0, 0, 0, 0));
+    moved.add(new Oval("o1", 26, 100, 350, 400, 255, 255, 255));
+    moved.add(new Oval("copy", 26, 100, 350, 400, 255, 255, 255));
+    List<Snapshot> snapshots = new ArrayList<>();
+    snapshots.add(snap2);
+    snapshots.add(new Snapshot("same", list2));
+    snapshots.add(new Snapshot("moved", moved));
+
+    WebView producedView = new WebView("Dedupe", produced.getPath(), "10", "10", true);
+    producedView.produceView(snapshots);
+    String start = "<div class=\"myDiv\">\n\t<h3>";
+    String svg = "</p>\n\t<svg width=\"10\" height=\"10\">\n";
+    String end = "\t</svg>\n</div>\n<p>\n</p>\n";
+    assertEquals("<!DOCTYPE html>\n<html>\n<body>\n<h1>Dedupe</h1>\n"
+            + "<style>\n.myDiv {\n\tborder: 5px outset red;\n\tbackground-color: "
+            + "lightblue;\n}\n</style>\n"
+            + start + snapshots.get(0).getID() + "</h3>\n\t<p>Description: snap with shapes"
+            + svg + "\t\t<defs>\n"
+            + "\t\t<rect id=\"state0\" x=\"0.0\" y=\"0.0\" width=\"0.0\" height=\"0.0\""
+            + " fill=\"rgb(0,0,0)\">\n\t\t</rect>\n"
+            + "\t\t<ellipse id=\"state1\" cx=\"25.0\" cy=\"100.0\" rx=\"350.0\" ry=\"400.0\""
+            + " fill=\"rgb(255,255,255)\">\n\t\t</ellipse>\n"
+            + "\t\t<ellipse id=\"state2\" cx=\"-100.0\" cy=\"300.0\" rx=\"1000.0\" ry=\"100.0\""
+            + " fill=\"rgb(128,100,78)\">\n\t\t</ellipse>\n\t\t</defs>\n"
+            + "\t\t<use id=\"r1\" href=\"#state0\"/>\n\t\t<use id=\"o1\" href=\"#state1\"/>\n"
+            + "\t\t<use id=\"OVAL\" href=\"#state2\"/>\n" + end
+            + start + snapshots.get(1).getID() + "</h3>\n\t<p>Description: same" + svg
+            + "\t\t<use id=\"r1\" href=\"#state0\"/>\n\t\t<use id=\"o1\" href=\"#state1\"/>\n"
+            + "\t\t<use id=\"OVAL\" href=\"#state2\"/>\n" + end
+            + start + snapshots.get(2).getID() + "</h3>\n\t<p>Description: moved" + svg
+            + "\t\t<defs>\n"
+            + "\t\t<ellipse id=\"state3\" cx=\"26.0\" cy=\"100.0\" rx=\"350.0\" ry=\"400.0\""
+            + " fill=\"rgb(255,255,255)\">\n\t\t</ellipse>\n\t\t</defs>\n"
+            + "\t\t<use id=\"r1\" href=\"#state0\"/>\n\t\t<use id=\"o1\" href=\"#state3\"/>\n"
+            + "\t\t<use id=\"copy\" href=\"#state3\"/>\n" + end
+            + "</body>\n</html>\n", producedView.toString());
+
+    WebView streamingView = new WebView("Dedupe", streamed.getPath(), "10", "10", true);
+    streamingView.startView();
+    for (Snapshot each : snapshots) {
+      streamingView.write(each);
+    }
+    streamingView.finishView();
+    assertEquals(producedView.toString(), Files.readString(streamed.toPath()));
+  }
+
+  /**
+   * Positive testing for produceView() with compact markup. Each fill color is defined as a CSS
+   * class the first time it is seen, and compact markup can be deduplicated and streamed too.
+   */
+  @Test
+  public void testProduceViewCompact() throws IOException {
+    File produced = newOutputFile("produced");
+    File streamed = newOutputFile("streamed");
+    File deduped = newOutputFile("deduped");
+
+    List<IShape> white = new ArrayList<>();
+    white.add(new Rectangle("w", 1, 2, 3, 4, 255, 255, 255));
+    List<Snapshot> snapshots = new ArrayList<>();
+    snapshots.add(snap2);
+    snapshots.add(new Snapshot("white", white));
+
+    WebView producedView = new WebView("Small", produced.getPath(), "10", "10", false, true);
+    producedView.produceView(snapshots);
+    assertEquals("<!DOCTYPE html><html><body><h1>Small</h1>"
+            + "<style>.myDiv{border:5px outset red;background-color:lightblue}</style>"
+            + "<div class=\"myDiv\"><h3>" + snap2.getID() + "</h3><p>Description: snap with "
+            + "shapes</p><svg width=\"10\" height=\"10\"><style>.c000000{fill:#000000}"
+            + ".cffffff{fill:#ffffff}.c80644e{fill:#80644e}</style>"
+            + "<rect id=\"r1\" x=\"0\" y=\"0\" width=\"0\" height=\"0\" class=\"c000000\"/>"
+            + "<ellipse id=\"o1\" cx=\"25\" cy=\"100\" rx=\"350\" ry=\"400\" class=\"cffffff\"/>"
+            + "<ellipse id=\"OVAL\" cx=\"-100\" cy=\"300\" rx=\"1000\" ry=\"100\" "
+            + "class=\"c80644e\"/></svg></div><p></p>"
+            + "<div class=\"myDiv\"><h3>" + snapshots.get(1).getID() + "</h3><p>Description: "
+            + "white</p><svg width=\"10\" height=\"10\">"
+            + "<rect id=\"w\" x=\"1\" y=\"2\" width=\"3\" height=\"4\" class=\"cffffff\"/>"
+            + "</svg></div><p></p></body></html>", producedView.toString());
+
+    WebView streamingView = new WebView("Small", streamed.getPath(), "10", "10", false, true);
+    streamingView.startView();
+    for (Snapshot each : snapshots) {
+      streamingView.write(each);
+    }
+    streamingView.finishView();
+    assertEquals(producedView.toString(), Files.readString(streamed.toPath()));
+
+    // Deduplicated compact markup defines shapes without whitespace too
+    snapshots.add(new Snapshot("white again", white));
+    WebView dedupedView = new WebView("Small", deduped.getPath(), "10", "10", true, true);
+    dedupedView.produceView(snapshots);
+    assertTrue(dedupedView.toString().endsWith("<svg width=\"10\" height=\"10\">"
+            + "<defs><rect id=\"state3\" x=\"1\" y=\"2\" width=\"3\" height=\"4\" "
+            + "class=\"cffffff\"/></defs><use id=\"w\" href=\"#state3\"/></svg></div><p></p>"
+            + "<div class=\"myDiv\"><h3>" + snapshots.get(2).getID() + "</h3><p>Description: "
+            + "white again</p><svg width=\"10\" height=\"10\">"
+            + "<use id=\"w\" href=\"#state3\"/>"
+            + "</svg></div><p></p></body></html>"));
+  }
+
+  /**
+   * Positive testing for abortView() method. What was written so far stays in the HTML file, and
+   * the view can no longer be written to. Aborting again, or a view that was never started, does
+   * nothing.
+   */
+  @Test
+  public void testAbortView() throws IOException {
+    File aborted = newOutputFile("aborted");
+
+    WebView streamingView = new WebView("Title", aborted.getPath(), "500", "400");
+    streamingView.abortView();
+    streamingView.startView();
+    streamingView.write(snap1);
+    streamingView.abortView();
+    streamingView.abortView();
+    String written = Files.readString(aborted.toPath());
+    assertTrue(written.endsWith("<p>Description: blank snap</p>\n\t<svg width=\"500\" "
+            + "height=\"400\">\n\t</svg>\n</div>\n<p>\n</p>\n"));
+    try {
+      streamingView.write(snap2);
+      fail("An aborted view should not be written to!");
+    } catch (IllegalStateException e) {
+      assertEquals(written, Files.readString(aborted.toPath()));
+    }
+  }
+
+  /**
+   * Negative testing for write() method. The view must be started first.
+   */
+  @Test (expected = IllegalStateException.class)
+  public void testWriteNotStarted() throws IOException {
+    new WebView("Title", "notstarted.html", "500", "400").write(snap1);
+  }
+
+  /**
+   * A helper method that returns a new HTML file path that does not exist yet and is deleted
+   * when the tests finish.
+   * @param prefix (String) start of the file name.
+   * @return (File) the unused file path.
+   * @throws IOException if the temporary file could not be created.
+   */
+  private static File newOutputFile(String prefix) throws IOException {
+    File file = File.createTempFile(prefix, ".html");
+    file.delete();
+    file.deleteOnExit();
+    return file;
+  }
+}